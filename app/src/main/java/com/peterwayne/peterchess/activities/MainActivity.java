@@ -109,8 +109,8 @@ public class MainActivity extends AppCompatActivity {
                 tempBoard.setVisibility(View.GONE);
             }else
             {
-                tempBoard.setChessBoard(moveLogAdapter.getMoveLog().get(currentPosition+1).getBoard());
-                tempBoard.setInstantMove(moveLogAdapter.getMoveLog().get(currentPosition));
+                tempBoard.setChessBoard(moveLogAdapter.getMoveLog().getBoard(currentPosition+1));
+                tempBoard.setInstantMove(moveLogAdapter.getMoveLog().getMove(currentPosition));
                 tempBoard.invalidate();
             }
 
@@ -126,8 +126,8 @@ public class MainActivity extends AppCompatActivity {
             moveLogAdapter.setSelectedPosition(currentPosition);
             moveLogAdapter.notifyDataSetChanged();
             moveHistoryUI.scrollToPosition(currentPosition);
-            tempBoard.setChessBoard(moveLogAdapter.getMoveLog().get(currentPosition+1).getBoard());
-            tempBoard.setInstantMove(moveLogAdapter.getMoveLog().get(currentPosition));
+            tempBoard.setChessBoard(moveLogAdapter.getMoveLog().getBoard(currentPosition+1));
+            tempBoard.setInstantMove(moveLogAdapter.getMoveLog().getMove(currentPosition));
 
         }else {
             moveLogAdapter.setSelectedPosition(-1);
@@ -11,20 +11,18 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.peterwayne.peterchess.R;
 import com.peterwayne.peterchess.activities.MainActivity;
-import com.peterwayne.peterchess.engine.board.Move;
 import com.peterwayne.peterchess.gui.GameUI;
 import com.peterwayne.peterchess.pattern.MyObserver;
-import java.util.List;
 
 public class MoveLogAdapter extends RecyclerView.Adapter<MoveLogAdapter.ViewHolder> implements MyObserver {
     private final Context context;
-    private List<Move> moveLog;
+    private GameUI.MoveLog moveLog;
     private int selectedPosition = 0;
     public MoveLogAdapter(Context context) {
         this.context = context;
     }
     @SuppressLint("NotifyDataSetChanged")
-    public void setData(List<Move> data)
+    public void setData(GameUI.MoveLog data)
     {
         moveLog = data;
         notifyDataSetChanged();
@@ -39,7 +37,6 @@ public class MoveLogAdapter extends RecyclerView.Adapter<MoveLogAdapter.ViewHold
 
     @Override
     public void onBindViewHolder(@NonNull MoveLogAdapter.ViewHolder holder, int position) {
-        Move move = moveLog.get(position);
         if(position%2==0)
         {
             String moveOrderText = (position/2 +1) + ".";
@@ -48,7 +45,7 @@ public class MoveLogAdapter extends RecyclerView.Adapter<MoveLogAdapter.ViewHold
         }else {
             holder.txtOrder.setVisibility(View.GONE);
         }
-        holder.txtMove.setText(move.toString());
+        holder.txtMove.setText(moveLog.getNotation(position));
         holder.itemView.setBackgroundColor(selectedPosition == position ? Color.GRAY : Color.TRANSPARENT);
     }
 
@@ -62,7 +59,7 @@ public class MoveLogAdapter extends RecyclerView.Adapter<MoveLogAdapter.ViewHold
     public void update(Object moveLog) {
         if(moveLog instanceof GameUI.MoveLog)
         {
-            this.setData(((GameUI.MoveLog) moveLog).getMoves());
+            this.setData((GameUI.MoveLog) moveLog);
             selectedPosition = getItemCount()-1;
         }
 
@@ -90,7 +87,7 @@ public class MoveLogAdapter extends RecyclerView.Adapter<MoveLogAdapter.ViewHold
         this.selectedPosition = selectedPosition;
     }
 
-    public List<Move> getMoveLog() {
+    public GameUI.MoveLog getMoveLog() {
         return moveLog;
     }
 }
@@ -36,6 +36,11 @@ public enum Alliance {
             return whitePlayer;
         }
 
+        @Override
+        public Alliance getOpposite() {
+            return BLACK;
+        }
+
         @Override
         public int pawnBonus(int piecePosition) {
             return WHITE_PAWN_PREFERRED_COORDINATES[piecePosition];
@@ -97,6 +102,11 @@ public enum Alliance {
             return blackPlayer;
         }
 
+        @Override
+        public Alliance getOpposite() {
+            return WHITE;
+        }
+
         @Override
         public int pawnBonus(int piecePosition) {
             return BLACK_PAWN_PREFERRED_COORDINATES[piecePosition];
@@ -134,6 +144,7 @@ public enum Alliance {
     public abstract  int getOppositeDirection();
     public abstract boolean isPawnPromotionSquare(int position);
     public abstract Player choosePlayerByAlliance(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer);
+    public abstract Alliance getOpposite();
     public abstract int pawnBonus(int piecePosition);
     public abstract int bishopBonus(int piecePosition);
     public abstract int knightBonus(int piecePosition);
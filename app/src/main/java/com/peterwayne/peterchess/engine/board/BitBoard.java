@@ -0,0 +1,215 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES;
+
+import androidx.annotation.NonNull;
+
+import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+//One 64-bit board per (alliance, piece type), bit i set <=> tile i holds that piece (0 = a8, 63 = h1)
+public final class BitBoard {
+    public static final int NO_PIECE = -1;
+    public static final int NUM_PIECE_TYPES = 6;
+    public static final int NUM_PIECE_CODES = 2 * NUM_PIECE_TYPES;
+    public static final int PAWN = Piece.PieceType.PAWN.ordinal();
+    public static final int KNIGHT = Piece.PieceType.KNIGHT.ordinal();
+    public static final int BISHOP = Piece.PieceType.BISHOP.ordinal();
+    public static final int ROOK = Piece.PieceType.ROOK.ordinal();
+    public static final int QUEEN = Piece.PieceType.QUEEN.ordinal();
+    public static final int KING = Piece.PieceType.KING.ordinal();
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+    private static final Alliance[] ALLIANCES = Alliance.values();
+
+    private final long[] pieceBoards;
+    private final long[] allianceBoards;
+    private final int[] pieceCodes;
+    private long occupied;
+
+    public BitBoard() {
+        this.pieceBoards = new long[NUM_PIECE_CODES];
+        this.allianceBoards = new long[ALLIANCES.length];
+        this.pieceCodes = new int[NUM_TILES];
+        Arrays.fill(this.pieceCodes, NO_PIECE);
+        this.occupied = 0L;
+    }
+
+    public BitBoard(final BitBoard other) {
+        this.pieceBoards = other.pieceBoards.clone();
+        this.allianceBoards = other.allianceBoards.clone();
+        this.pieceCodes = other.pieceCodes.clone();
+        this.occupied = other.occupied;
+    }
+
+    public static long squareMask(final int square) {
+        return 1L << square;
+    }
+
+    public static int pieceCode(final Alliance alliance, final Piece.PieceType pieceType) {
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public static Alliance allianceOf(final int pieceCode) {
+        return ALLIANCES[pieceCode / NUM_PIECE_TYPES];
+    }
+
+    public static Piece.PieceType pieceTypeOf(final int pieceCode) {
+        return PIECE_TYPES[pieceCode % NUM_PIECE_TYPES];
+    }
+
+    public void setPiece(final int pieceCode, final int square) {
+        final long mask = squareMask(square);
+        this.pieceBoards[pieceCode] |= mask;
+        this.allianceBoards[pieceCode / NUM_PIECE_TYPES] |= mask;
+        this.occupied |= mask;
+        this.pieceCodes[square] = pieceCode;
+    }
+
+    public void setPiece(final Piece piece) {
+        setPiece(pieceCode(piece.getPieceAlliance(), piece.getPieceType()), piece.getPiecePosition());
+    }
+
+    public int removePiece(final int square) {
+        final int pieceCode = this.pieceCodes[square];
+        if(pieceCode != NO_PIECE) {
+            final long mask = ~squareMask(square);
+            this.pieceBoards[pieceCode] &= mask;
+            this.allianceBoards[pieceCode / NUM_PIECE_TYPES] &= mask;
+            this.occupied &= mask;
+            this.pieceCodes[square] = NO_PIECE;
+        }
+        return pieceCode;
+    }
+
+    public boolean isOccupied(final int square) {
+        return (this.occupied & squareMask(square)) != 0;
+    }
+
+    public int getPieceCode(final int square) {
+        return this.pieceCodes[square];
+    }
+
+    public long getPieces(final int pieceCode) {
+        return this.pieceBoards[pieceCode];
+    }
+
+    public long getPieces(final Alliance alliance, final Piece.PieceType pieceType) {
+        return this.pieceBoards[pieceCode(alliance, pieceType)];
+    }
+
+    public long getOccupancy(final Alliance alliance) {
+        return this.allianceBoards[alliance.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return this.occupied;
+    }
+
+    public boolean isSquareAttacked(final int square, final Alliance attackerAlliance) {
+        return attackersOf(square, attackerAlliance, this.occupied) != 0;
+    }
+
+    //pieces of the attacker alliance attacking the square, sliders see through everything not in occupancy
+    public long attackersOf(final int square, final Alliance attackerAlliance, final long occupancy) {
+        final int base = attackerAlliance.ordinal() * NUM_PIECE_TYPES;
+        final long queens = this.pieceBoards[base + QUEEN];
+        return (LeaperAttacks.pawnAttacks(attackerAlliance.getOpposite(), square) & this.pieceBoards[base + PAWN]) |
+               (LeaperAttacks.knightAttacks(square) & this.pieceBoards[base + KNIGHT]) |
+               (LeaperAttacks.kingAttacks(square) & this.pieceBoards[base + KING]) |
+               (MagicBitBoards.bishopAttacks(square, occupancy) & (this.pieceBoards[base + BISHOP] | queens) & occupancy) |
+               (MagicBitBoards.rookAttacks(square, occupancy) & (this.pieceBoards[base + ROOK] | queens) & occupancy);
+    }
+
+    public int getKingSquare(final Alliance alliance) {
+        return Long.numberOfTrailingZeros(this.pieceBoards[pieceCode(alliance, Piece.PieceType.KING)]);
+    }
+
+    //enemy pieces giving check to the king of the alliance
+    public long getCheckers(final Alliance alliance) {
+        return attackersOf(getKingSquare(alliance), alliance.getOpposite(), this.occupied);
+    }
+
+    //pieces of the alliance that are the only thing between their king and an enemy slider
+    public long getPinnedPieces(final Alliance alliance) {
+        final int kingSquare = getKingSquare(alliance);
+        final int base = alliance.getOpposite().ordinal() * NUM_PIECE_TYPES;
+        final long queens = this.pieceBoards[base + QUEEN];
+        final long enemies = this.allianceBoards[alliance.getOpposite().ordinal()];
+        long snipers = (MagicBitBoards.rookAttacks(kingSquare, enemies) & (this.pieceBoards[base + ROOK] | queens)) |
+                       (MagicBitBoards.bishopAttacks(kingSquare, enemies) & (this.pieceBoards[base + BISHOP] | queens));
+        long pinned = 0L;
+        while(snipers != 0) {
+            final long blockers = MagicBitBoards.squaresBetween(kingSquare, Long.numberOfTrailingZeros(snipers)) & this.occupied;
+            if(Long.bitCount(blockers) == 1) {
+                pinned |= blockers & this.allianceBoards[alliance.ordinal()];
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    //whether moving from -> to keeps the mover's king safe, without playing the move.
+    //capturedSquare differs from to only for en passant; pinned and checkers come from
+    //getPinnedPieces/getCheckers of the same position so they are computed once per position
+    public boolean isLegalMove(final Alliance alliance,
+                               final int from,
+                               final int to,
+                               final int capturedSquare,
+                               final long pinned,
+                               final long checkers) {
+        final int kingSquare = getKingSquare(alliance);
+        final Alliance opponent = alliance.getOpposite();
+        if(from == kingSquare) {
+            return attackersOf(to, opponent, this.occupied & ~squareMask(from)) == 0;
+        }
+        if(capturedSquare != to) {
+            //en passant empties two tiles of a line at once, check the resulting occupancy directly
+            final long occupancy = (this.occupied & ~squareMask(from) & ~squareMask(capturedSquare)) | squareMask(to);
+            return (attackersOf(kingSquare, opponent, occupancy) & ~squareMask(capturedSquare)) == 0;
+        }
+        if(checkers != 0) {
+            if(Long.bitCount(checkers) > 1) {
+                return false;
+            }
+            final int checker = Long.numberOfTrailingZeros(checkers);
+            if(((checkers | MagicBitBoards.squaresBetween(kingSquare, checker)) & squareMask(to)) == 0) {
+                return false;
+            }
+        }
+        return (pinned & squareMask(from)) == 0 || (MagicBitBoards.lineThrough(kingSquare, from) & squareMask(to)) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BitBoard bitBoard = (BitBoard) o;
+        return Arrays.equals(pieceBoards, bitBoard.pieceBoards);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pieceBoards);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < NUM_TILES; i++) {
+            final int pieceCode = this.pieceCodes[i];
+            if(pieceCode == NO_PIECE) {
+                sb.append(String.format("%3s", "-"));
+            } else {
+                final String pieceName = pieceTypeOf(pieceCode).toString();
+                sb.append(String.format("%3s", allianceOf(pieceCode).isBlack() ? pieceName.toLowerCase() : pieceName));
+            }
+            if((i + 1) % BoardUtils.NUM_TILES_PER_ROW == 0) {
+                sb.append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -7,115 +7,121 @@ import androidx.annotation.NonNull;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.peterwayne.peterchess.engine.Alliance;
-import com.peterwayne.peterchess.engine.pieces.Bishop;
-import com.peterwayne.peterchess.engine.pieces.King;
-import com.peterwayne.peterchess.engine.pieces.Knight;
 import com.peterwayne.peterchess.engine.pieces.Pawn;
 import com.peterwayne.peterchess.engine.pieces.Piece;
-import com.peterwayne.peterchess.engine.pieces.Queen;
-import com.peterwayne.peterchess.engine.pieces.Rook;
+import com.peterwayne.peterchess.engine.pieces.PieceUtils;
 import com.peterwayne.peterchess.engine.player.BlackPlayer;
 import com.peterwayne.peterchess.engine.player.Player;
 import com.peterwayne.peterchess.engine.player.WhitePlayer;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
 
 public class Board {
-    private final Map<Integer, Piece> boardConfig;
-    private final List<Tile> gameBoard;
-    private final Collection<Piece> whitePieces;
-    private final Collection<Piece> blackPieces;
+    private final BitBoard bitBoard;
+    private final Piece[] boardConfig;
+    //piece lists are built on first access, boards share the flyweight Piece instances
+    private Collection<Piece> whitePieces;
+    private Collection<Piece> blackPieces;
+    private Collection<Piece> allPieces;
+    //pseudo-legal moves of each side, generated on first access
+    private Collection<Move> whiteStandardMoves;
+    private Collection<Move> blackStandardMoves;
     private final WhitePlayer whitePlayer;
     private final BlackPlayer blackPlayer;
     private final Player currentPlayer;
     private final Pawn enPassantPawn;
-    private final Move transitionMove;
+    private final long zobristHash;
     public Board(final Builder builder) {
-        this.boardConfig = Collections.unmodifiableMap(builder.boardConfig);
-        this.gameBoard = createGameBoard(builder);
+        this.boardConfig = builder.boardConfig.clone();
+        this.bitBoard = createBitBoard(this.boardConfig);
         this.enPassantPawn = builder.enPassantPawn;
-        this.whitePieces = calculateActivePieces(this.gameBoard, Alliance.WHITE);
-        this.blackPieces = calculateActivePieces(this.gameBoard, Alliance.BLACK);
-        final Collection<Move> whiteStandardMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardMoves = calculateLegalMoves(this.blackPieces);
-        this.whitePlayer = new WhitePlayer(this,whiteStandardMoves,blackStandardMoves);
-        this.blackPlayer = new BlackPlayer(this,whiteStandardMoves,blackStandardMoves);
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayerByAlliance(this.whitePlayer,this.blackPlayer);
-        this.transitionMove = builder.transitionMove != null ? builder.transitionMove : Move.MoveFactory.getNullMove();
+        this.zobristHash = builder.hasZobristHash ? builder.zobristHash : calculateZobristHash();
+    }
+    //full key from scratch, only for boards not reached through Move.execute
+    private long calculateZobristHash() {
+        long hash = 0L;
+        for(final Piece piece : this.boardConfig)
+        {
+            if(piece != null)
+            {
+                hash ^= Zobrist.pieceKey(piece);
+            }
+        }
+        hash ^= Zobrist.castlingKey(getCastlingRights());
+        if(this.enPassantPawn != null)
+        {
+            hash ^= Zobrist.enPassantKey(this.enPassantPawn.getPiecePosition());
+        }
+        return this.currentPlayer.getAlliance().isBlack() ? hash ^ Zobrist.sideToMoveKey() : hash;
     }
     private Collection<Move> calculateLegalMoves(Collection<Piece> pieces) {
         return pieces.stream()
                 .flatMap(piece -> piece.calculateLegalMoves(this).stream())
-                .collect(Collectors.toList());
+                .collect(ImmutableList.toImmutableList());
     }
-    private Collection<Piece> calculateActivePieces(final List<Tile> gameBoard, final Alliance alliance) {
-        final List<Piece> activePieces = new ArrayList<>();
-        for(final Tile tile : gameBoard)
+    private Collection<Piece> calculateActivePieces(final Alliance alliance) {
+        final ImmutableList.Builder<Piece> activePieces = ImmutableList.builder();
+        long occupancy = this.bitBoard.getOccupancy(alliance);
+        while(occupancy != 0)
         {
-            if(tile.isTileOccupied())
-            {
-                final Piece piece = tile.getPiece();
-                if(piece.getPieceAlliance() == alliance)
-                {
-                    activePieces.add(piece);
-                }
-            }
+            activePieces.add(this.boardConfig[Long.numberOfTrailingZeros(occupancy)]);
+            occupancy &= occupancy - 1;
         }
-        return ImmutableList.copyOf(activePieces);
+        return activePieces.build();
     }
-    private List<Tile> createGameBoard(final Builder builder) {
-        final Tile[] tiles = new Tile[NUM_TILES];
-        for(int i=0 ; i<NUM_TILES; i++)
+    private static BitBoard createBitBoard(final Piece[] boardConfig) {
+        final BitBoard bitBoard = new BitBoard();
+        for(final Piece piece : boardConfig)
         {
-            tiles[i] = Tile.createTile(i, builder.boardConfig.get(i));
+            if(piece != null)
+            {
+                bitBoard.setPiece(piece);
+            }
         }
-        return ImmutableList.copyOf(tiles);
+        return bitBoard;
     }
     public static Board createStandardBoard()
     {
         final Builder builder = new Builder();
         //BLACK layout
-        builder.setPiece(new Rook(Alliance.BLACK,0));
-        builder.setPiece(new Knight(Alliance.BLACK,1));
-        builder.setPiece(new Bishop(Alliance.BLACK,2));
-        builder.setPiece(new Queen(Alliance.BLACK,3));
-        builder.setPiece(new King(Alliance.BLACK,4,true, true));
-        builder.setPiece(new Bishop(Alliance.BLACK,5));
-        builder.setPiece(new Knight(Alliance.BLACK,6));
-        builder.setPiece(new Rook(Alliance.BLACK,7));
-        builder.setPiece(new Pawn(Alliance.BLACK,8));
-        builder.setPiece(new Pawn(Alliance.BLACK,9));
-        builder.setPiece(new Pawn(Alliance.BLACK,10));
-        builder.setPiece(new Pawn(Alliance.BLACK,11));
-        builder.setPiece(new Pawn(Alliance.BLACK,12));
-        builder.setPiece(new Pawn(Alliance.BLACK,13));
-        builder.setPiece(new Pawn(Alliance.BLACK,14));
-        builder.setPiece(new Pawn(Alliance.BLACK,15));
+        builder.setPiece(PieceUtils.getRook(Alliance.BLACK, 0, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.BLACK, 1, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.BLACK, 2, true));
+        builder.setPiece(PieceUtils.getQueen(Alliance.BLACK, 3, true));
+        builder.setPiece(PieceUtils.getKing(Alliance.BLACK, 4, true, false, true, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.BLACK, 5, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.BLACK, 6, true));
+        builder.setPiece(PieceUtils.getRook(Alliance.BLACK, 7, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 8, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 9, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 10, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 11, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 12, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 13, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 14, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.BLACK, 15, true));
 
         //WHITE layout
-        builder.setPiece(new Rook(Alliance.WHITE,56));
-        builder.setPiece(new Knight(Alliance.WHITE,57));
-        builder.setPiece(new Bishop(Alliance.WHITE,58));
-        builder.setPiece(new Queen(Alliance.WHITE,59));
-        builder.setPiece(new King(Alliance.WHITE,60, true, true));
-        builder.setPiece(new Bishop(Alliance.WHITE,61));
-        builder.setPiece(new Knight(Alliance.WHITE,62));
-        builder.setPiece(new Rook(Alliance.WHITE,63));
-        builder.setPiece(new Pawn(Alliance.WHITE,48));
-        builder.setPiece(new Pawn(Alliance.WHITE,49));
-        builder.setPiece(new Pawn(Alliance.WHITE,50));
-        builder.setPiece(new Pawn(Alliance.WHITE,51));
-        builder.setPiece(new Pawn(Alliance.WHITE,52));
-        builder.setPiece(new Pawn(Alliance.WHITE,53));
-        builder.setPiece(new Pawn(Alliance.WHITE,54));
-        builder.setPiece(new Pawn(Alliance.WHITE,55));
+        builder.setPiece(PieceUtils.getRook(Alliance.WHITE, 56, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.WHITE, 57, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.WHITE, 58, true));
+        builder.setPiece(PieceUtils.getQueen(Alliance.WHITE, 59, true));
+        builder.setPiece(PieceUtils.getKing(Alliance.WHITE, 60, true, false, true, true));
+        builder.setPiece(PieceUtils.getBishop(Alliance.WHITE, 61, true));
+        builder.setPiece(PieceUtils.getKnight(Alliance.WHITE, 62, true));
+        builder.setPiece(PieceUtils.getRook(Alliance.WHITE, 63, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 48, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 49, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 50, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 51, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 52, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 53, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 54, true));
+        builder.setPiece(PieceUtils.getPawn(Alliance.WHITE, 55, true));
 
         //white to move
         builder.setMoveMaker(Alliance.WHITE);
@@ -123,41 +129,124 @@ public class Board {
     }
 
     public Tile getTile(final int tileCoordinate) {
-        return this.gameBoard.get(tileCoordinate);
+        return Tile.createTile(tileCoordinate, this.boardConfig[tileCoordinate]);
     }
     public Piece getPiece(final int coordinate)
     {
-        return this.boardConfig.get(coordinate);
+        return this.boardConfig[coordinate];
+    }
+    public boolean isTileOccupied(final int coordinate)
+    {
+        return this.bitBoard.isOccupied(coordinate);
+    }
+    //answered from the attack tables, working back from the square; no move list is generated
+    public boolean isSquareAttacked(final int coordinate, final Alliance byAlliance)
+    {
+        return this.bitBoard.isSquareAttacked(coordinate, byAlliance);
+    }
+    public Collection<Piece> attackersOf(final int coordinate)
+    {
+        final ImmutableList.Builder<Piece> attackers = ImmutableList.builder();
+        long attackerSquares = this.bitBoard.attackersOf(coordinate, Alliance.WHITE, this.bitBoard.getOccupancy()) |
+                               this.bitBoard.attackersOf(coordinate, Alliance.BLACK, this.bitBoard.getOccupancy());
+        while(attackerSquares != 0)
+        {
+            attackers.add(this.boardConfig[Long.numberOfTrailingZeros(attackerSquares)]);
+            attackerSquares &= attackerSquares - 1;
+        }
+        return attackers.build();
+    }
+    public BitBoard getBitBoard() {
+        return this.bitBoard;
     }
     public Collection<Piece> getAllPieces()
     {
-        return Stream.concat(blackPieces.stream(), whitePieces.stream()).collect(Collectors.toList());
+        if(this.allPieces == null)
+        {
+            this.allPieces = ImmutableList.<Piece>builder()
+                    .addAll(getBlackPieces())
+                    .addAll(getWhitePieces())
+                    .build();
+        }
+        return this.allPieces;
     }
     public Collection<Piece> getWhitePieces() {
-        return whitePieces;
+        if(this.whitePieces == null)
+        {
+            this.whitePieces = calculateActivePieces(Alliance.WHITE);
+        }
+        return this.whitePieces;
     }
 
     public Collection<Piece> getBlackPieces() {
-        return blackPieces;
+        if(this.blackPieces == null)
+        {
+            this.blackPieces = calculateActivePieces(Alliance.BLACK);
+        }
+        return this.blackPieces;
     }
 
     public Player getCurrentPlayer() {
         return currentPlayer;
     }
+    public Collection<Move> getStandardMoves(final Alliance alliance) {
+        if(alliance.isWhite())
+        {
+            if(this.whiteStandardMoves == null)
+            {
+                this.whiteStandardMoves = calculateLegalMoves(getWhitePieces());
+            }
+            return this.whiteStandardMoves;
+        }
+        if(this.blackStandardMoves == null)
+        {
+            this.blackStandardMoves = calculateLegalMoves(getBlackPieces());
+        }
+        return this.blackStandardMoves;
+    }
+    //castling rights as SearchBoard castling bits: an unmoved king with its castle capable flag and an unmoved rook
+    public int getCastlingRights() {
+        return SearchBoard.calculateCastlingRights(this, Alliance.WHITE) |
+               SearchBoard.calculateCastlingRights(this, Alliance.BLACK);
+    }
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
     public Pawn getEnPassantPawn() {
         return enPassantPawn;
     }
+    //moves the player to move can actually play, see Player.getStrictlyLegalMoves()
+    public Collection<Move> getStrictlyLegalMoves() {
+        return this.currentPlayer.getStrictlyLegalMoves();
+    }
     public Iterable<Move> getAllLegalMoves() {
         return Iterables.unmodifiableIterable(Iterables.concat(this.whitePlayer.getLegalMoves(), this.blackPlayer.getLegalMoves()));
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Board board = (Board) o;
+        return zobristHash == board.zobristHash &&
+               currentPlayer.getAlliance() == board.currentPlayer.getAlliance() &&
+               getCastlingRights() == board.getCastlingRights() &&
+               Objects.equals(enPassantPawn, board.enPassantPawn) &&
+               bitBoard.equals(board.bitBoard);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobristHash);
+    }
+
     @NonNull
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
         for(int i= 0 ;i <BoardUtils.NUM_TILES; i++)
         {
-            final String tileText = this.gameBoard.get(i).toString();
+            final String tileText = getTile(i).toString();
             sb.append(String.format("%3s", tileText));
             if((i+1)%BoardUtils.NUM_TILES_PER_ROW==0)
             {
@@ -175,23 +264,30 @@ public class Board {
         return blackPlayer;
     }
 
-    public Move getTransitionMove() {
-        return this.transitionMove;
-    }
-
     public static class Builder
     {
-        Map<Integer, Piece> boardConfig;
+        final Piece[] boardConfig;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
-        Move transitionMove;
+        long zobristHash;
+        boolean hasZobristHash;
         public Builder()
         {
-            this.boardConfig = new HashMap<>();
+            this.boardConfig = new Piece[NUM_TILES];
+        }
+        //starts from the pieces of an existing board; side to move, en passant pawn and the rest are set by the caller
+        Builder(final Board board)
+        {
+            this.boardConfig = board.boardConfig.clone();
         }
         public Builder setPiece(final Piece piece)
         {
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()] = piece;
+            return this;
+        }
+        Builder removePiece(final int coordinate)
+        {
+            this.boardConfig[coordinate] = null;
             return this;
         }
         public Builder setMoveMaker(final Alliance nextMoveMaker)
@@ -209,8 +305,10 @@ public class Board {
             return new Board(this);
         }
 
-        public Builder setMoveTransition(final Move transitionMove) {
-            this.transitionMove = transitionMove;
+        //key of the built board when the caller already knows it, e.g. updated incrementally by a move
+        Builder setZobristHash(final long zobristHash) {
+            this.zobristHash = zobristHash;
+            this.hasZobristHash = true;
             return this;
         }
     }
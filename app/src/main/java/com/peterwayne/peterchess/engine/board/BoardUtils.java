@@ -2,13 +2,12 @@ package com.peterwayne.peterchess.engine.board;
 
 import com.google.common.collect.ImmutableMap;
 import com.peterwayne.peterchess.R;
+import com.peterwayne.peterchess.engine.Alliance;
 import com.peterwayne.peterchess.engine.pieces.King;
 import com.peterwayne.peterchess.engine.pieces.Piece;
 import com.peterwayne.peterchess.engine.player.ai.PawnStructureAnalyzer;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +33,8 @@ public enum BoardUtils {
     private static final int START_TILE_INDEX = 0;
     public static final int NUM_TILES = 64;
     public static final int NUM_TILES_PER_ROW = 8;
+    //captures on one square in a static exchange, bounded by the pieces on the board
+    public static final int MAX_EXCHANGE_LENGTH = 32;
 //    public final Map<String, Integer> POSITION_TO_COORDINATE = initPositionToCoordinateMap();
 
     private Map<String, Integer> initPositionToCoordinateMap() {
@@ -103,11 +104,6 @@ public enum BoardUtils {
                 piece.getPieceType() == Piece.PieceType.PAWN &&
                 piece.getPieceAlliance() != king.getPieceAlliance();
     }
-    public static boolean isEndGame(final Board board) {
-        //TODO Repetition cause draw
-        return board.getCurrentPlayer().isInCheckMate() ||
-                board.getCurrentPlayer().isInStaleMate();
-    }
     //Most Valuable Victim - Least Valuable Aggressor
     public static int mvvlva(final Move move)
     {
@@ -120,24 +116,111 @@ public enum BoardUtils {
         return Piece.PieceType.KING.getPieceValue() - movingPiece.getPieceValue();
     }
 
-    public static boolean kingThreat(final Move move) {
-        final Board board = move.getBoard();
-        final MoveTransition transition = board.getCurrentPlayer().makeMove(move);
-        return transition.getToBoard().getCurrentPlayer().isInCheck();
+    public static int mvvlva(final SearchBoard board, final int move)
+    {
+        final BitBoard bitBoard = board.getBitBoard();
+        final int movingPieceValue = BitBoard.pieceTypeOf(bitBoard.getPieceCode(SearchBoard.fromSquare(move))).getPieceValue();
+        if(SearchBoard.isCapture(move))
+        {
+            final int attackedPieceValue = SearchBoard.moveFlag(move) == SearchBoard.EN_PASSANT ?
+                    Piece.PieceType.PAWN.getPieceValue() :
+                    BitBoard.pieceTypeOf(bitBoard.getPieceCode(SearchBoard.toSquare(move))).getPieceValue();
+            return (attackedPieceValue - movingPieceValue + Piece.PieceType.KING.getPieceValue())*100;
+        }
+        return Piece.PieceType.KING.getPieceValue() - movingPieceValue;
     }
 
-    public static Collection<Move> lastNMove(final Board board, int N) {
-        final List<Move> moveHistory = new ArrayList<>();
-        Move currentMove = board.getTransitionMove();
-        int i = 0;
-        while(currentMove != Move.MoveFactory.getNullMove() && i < N) {
-            moveHistory.add(currentMove);
-            currentMove = currentMove.getBoard().getTransitionMove();
-            i++;
+    //Static Exchange Evaluation of a capture or promotion of the side to move: the material it wins,
+    //negative when it loses, if both sides then keep recapturing on the destination with their least
+    //valuable piece and either side stops once going on would lose more. Pins are not looked at.
+    //gains is scratch space of MAX_EXCHANGE_LENGTH, owned by the calling thread (see SearchBoard.see)
+    public static int see(final SearchBoard board, final int move, final int[] gains)
+    {
+        final int from = SearchBoard.fromSquare(move);
+        final int to = SearchBoard.toSquare(move);
+        final BitBoard bitBoard = board.getBitBoard();
+        long occupancy = bitBoard.getOccupancy();
+        int capturedValue = 0;
+        if(SearchBoard.moveFlag(move) == SearchBoard.EN_PASSANT)
+        {
+            capturedValue = Piece.PieceType.PAWN.getPieceValue();
+            occupancy &= ~BitBoard.squareMask(to - board.getSideToMove().getDirection() * NUM_TILES_PER_ROW);
         }
-        return Collections.unmodifiableList(moveHistory);
+        else if(SearchBoard.isCapture(move))
+        {
+            capturedValue = BitBoard.pieceTypeOf(bitBoard.getPieceCode(to)).getPieceValue();
+        }
+        int attackerValue = BitBoard.pieceTypeOf(bitBoard.getPieceCode(from)).getPieceValue();
+        if(SearchBoard.isPromotion(move))
+        {
+            attackerValue = BitBoard.pieceTypeOf(SearchBoard.promotionPieceType(move)).getPieceValue();
+            capturedValue += attackerValue - Piece.PieceType.PAWN.getPieceValue();
+        }
+        return see(bitBoard, from, to, capturedValue, attackerValue, occupancy, gains);
     }
+
+    //the same for the piece on from taking the enemy piece on to, whoever is to move
+    public static int see(final BitBoard bitBoard, final int from, final int to, final int[] gains)
+    {
+        return see(bitBoard, from, to,
+                BitBoard.pieceTypeOf(bitBoard.getPieceCode(to)).getPieceValue(),
+                BitBoard.pieceTypeOf(bitBoard.getPieceCode(from)).getPieceValue(),
+                bitBoard.getOccupancy(), gains);
+    }
+
+    //gains[i] is the balance for the side making capture i if it was the last one. Sliders behind a
+    //capturer join in once it has left the line (x-rays), found again from the reduced occupancy.
+    //The sequence is played out to the end, the unwind then lets each side stop where it is best off.
+    private static int see(final BitBoard bitBoard,
+                           final int from,
+                           final int to,
+                           final int capturedValue,
+                           final int firstAttackerValue,
+                           long occupancy,
+                           final int[] gains)
+    {
+        int numCaptures = 0;
+        gains[0] = capturedValue;
+        int attackerValue = firstAttackerValue;
+        Alliance side = BitBoard.allianceOf(bitBoard.getPieceCode(from));
+        long attackerSquare = BitBoard.squareMask(from);
+        while(true)
+        {
+            numCaptures++;
+            gains[numCaptures] = attackerValue - gains[numCaptures - 1];
+            occupancy &= ~attackerSquare;
+            side = side.getOpposite();
+            final long attackers = bitBoard.attackersOf(to, side, occupancy) & occupancy;
+            if(attackers == 0)
+            {
+                break;
+            }
+            int pieceCode = side.ordinal() * BitBoard.NUM_PIECE_TYPES;
+            while((attackers & bitBoard.getPieces(pieceCode)) == 0)
+            {
+                pieceCode++;
+            }
+            //a king may only take last
+            if(pieceCode % BitBoard.NUM_PIECE_TYPES == BitBoard.KING &&
+               (bitBoard.attackersOf(to, side.getOpposite(), occupancy) & occupancy) != 0)
+            {
+                break;
+            }
+            attackerSquare = Long.lowestOneBit(attackers & bitBoard.getPieces(pieceCode));
+            attackerValue = BitBoard.pieceTypeOf(pieceCode).getPieceValue();
+        }
+        while(--numCaptures > 0)
+        {
+            gains[numCaptures - 1] = -Math.max(-gains[numCaptures - 1], gains[numCaptures]);
+        }
+        return gains[0];
+    }
+
     public String getPositionAtCoordinate(int coordinate) {
         return ALGEBRAIC_NOTATION.get(coordinate);
     }
+
+    public int getCoordinateAtPosition(final String position) {
+        return ALGEBRAIC_NOTATION.indexOf(position);
+    }
 }
@@ -0,0 +1,136 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+
+import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.pieces.Pawn;
+import com.peterwayne.peterchess.engine.pieces.Piece;
+import com.peterwayne.peterchess.engine.pieces.PieceUtils;
+
+//Reads and writes positions in Forsyth-Edwards Notation; the move clocks are not tracked by Board
+public enum FenUtilities {
+    INSTANCE;
+
+    public static Board createGameFromFEN(final String fenString) {
+        final String[] fields = fenString.trim().split(" ");
+        if(fields.length < 4) {
+            throw new RuntimeException("Invalid FEN string: " + fenString);
+        }
+        final String castling = fields[2];
+        final Board.Builder builder = new Board.Builder();
+        int tile = 0;
+        for(final char c : fields[0].toCharArray()) {
+            if(c == '/') {
+                continue;
+            }
+            if(Character.isDigit(c)) {
+                tile += c - '0';
+                continue;
+            }
+            builder.setPiece(createPiece(c, tile, castling));
+            tile++;
+        }
+        if(tile != BoardUtils.NUM_TILES) {
+            throw new RuntimeException("Invalid FEN string: " + fenString);
+        }
+        final Alliance moveMaker = fields[1].equals("w") ? Alliance.WHITE : Alliance.BLACK;
+        builder.setMoveMaker(moveMaker);
+        if(!fields[3].equals("-")) {
+            //the pawn that just jumped stands one row past the en passant square
+            final int enPassantSquare = BoardUtils.INSTANCE.getCoordinateAtPosition(fields[3]);
+            final Alliance pawnAlliance = moveMaker.getOpposite();
+            final int pawnPosition = enPassantSquare + pawnAlliance.getDirection() * NUM_TILES_PER_ROW;
+            final Pawn enPassantPawn = PieceUtils.getPawn(pawnAlliance, pawnPosition, false);
+            builder.setPiece(enPassantPawn);
+            builder.setEnPassantPawn(enPassantPawn);
+        }
+        return builder.build();
+    }
+
+    public static String createFENFromGame(final Board board) {
+        return calculateBoardText(board) + " " +
+               (board.getCurrentPlayer().getAlliance().isWhite() ? "w" : "b") + " " +
+               calculateCastleText(board) + " " +
+               calculateEnPassantSquare(board) + " 0 1";
+    }
+
+    private static Piece createPiece(final char c, final int tile, final String castling) {
+        final Alliance alliance = Character.isUpperCase(c) ? Alliance.WHITE : Alliance.BLACK;
+        final boolean isWhite = alliance.isWhite();
+        switch(Character.toLowerCase(c)) {
+            case 'p':
+                return PieceUtils.getPawn(alliance, tile, isWhite ? BoardUtils.SECOND_RANK[tile] : BoardUtils.SEVENTH_RANK[tile]);
+            case 'n':
+                return PieceUtils.getKnight(alliance, tile, false);
+            case 'b':
+                return PieceUtils.getBishop(alliance, tile, false);
+            case 'r':
+                //a rook that may still castle has not moved yet
+                final boolean kingSideRook = tile == (isWhite ? 63 : 7) && castling.contains(isWhite ? "K" : "k");
+                final boolean queenSideRook = tile == (isWhite ? 56 : 0) && castling.contains(isWhite ? "Q" : "q");
+                return PieceUtils.getRook(alliance, tile, kingSideRook || queenSideRook);
+            case 'q':
+                return PieceUtils.getQueen(alliance, tile, false);
+            case 'k':
+                final boolean kingSideCastle = castling.contains(isWhite ? "K" : "k");
+                final boolean queenSideCastle = castling.contains(isWhite ? "Q" : "q");
+                return PieceUtils.getKing(alliance, tile, kingSideCastle || queenSideCastle, false, kingSideCastle, queenSideCastle);
+            default:
+                throw new RuntimeException("Invalid FEN piece: " + c);
+        }
+    }
+
+    private static String calculateBoardText(final Board board) {
+        final StringBuilder sb = new StringBuilder();
+        int emptyTiles = 0;
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
+            final Piece piece = board.getPiece(i);
+            if(piece == null) {
+                emptyTiles++;
+            } else {
+                if(emptyTiles > 0) {
+                    sb.append(emptyTiles);
+                    emptyTiles = 0;
+                }
+                final String pieceText = piece.getPieceType().toString();
+                sb.append(piece.getPieceAlliance().isWhite() ? pieceText.toUpperCase() : pieceText.toLowerCase());
+            }
+            if((i + 1) % NUM_TILES_PER_ROW == 0) {
+                if(emptyTiles > 0) {
+                    sb.append(emptyTiles);
+                    emptyTiles = 0;
+                }
+                if(i != BoardUtils.NUM_TILES - 1) {
+                    sb.append('/');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String calculateCastleText(final Board board) {
+        final StringBuilder sb = new StringBuilder();
+        if(board.getWhitePlayer().getPlayerKing().isKingSideCastleCapable()) {
+            sb.append('K');
+        }
+        if(board.getWhitePlayer().getPlayerKing().isQueenSideCastleCapable()) {
+            sb.append('Q');
+        }
+        if(board.getBlackPlayer().getPlayerKing().isKingSideCastleCapable()) {
+            sb.append('k');
+        }
+        if(board.getBlackPlayer().getPlayerKing().isQueenSideCastleCapable()) {
+            sb.append('q');
+        }
+        return sb.length() == 0 ? "-" : sb.toString();
+    }
+
+    private static String calculateEnPassantSquare(final Board board) {
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if(enPassantPawn == null) {
+            return "-";
+        }
+        return BoardUtils.INSTANCE.getPositionAtCoordinate(enPassantPawn.getPiecePosition() +
+                enPassantPawn.getPieceAlliance().getOppositeDirection() * NUM_TILES_PER_ROW);
+    }
+}
@@ -0,0 +1,31 @@
+package com.peterwayne.peterchess.engine.board;
+
+//result of a position for the side to move, derived from whether it has a legal move and is in check
+public enum GameState {
+    ONGOING {
+        @Override
+        public boolean isGameOver() {
+            return false;
+        }
+    },
+    CHECKMATE {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    },
+    STALEMATE {
+        @Override
+        public boolean isGameOver() {
+            return true;
+        }
+    };
+    public abstract boolean isGameOver();
+
+    public static GameState of(final boolean hasLegalMove, final boolean isInCheck) {
+        if(hasLegalMove) {
+            return ONGOING;
+        }
+        return isInCheck ? CHECKMATE : STALEMATE;
+    }
+}
@@ -0,0 +1,51 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES;
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+
+import com.peterwayne.peterchess.engine.Alliance;
+
+//Per-tile attack masks for the pieces that jump to a fixed set of tiles, built once at class load
+public final class LeaperAttacks {
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] WHITE_PAWN_STEPS = {{-1, -1}, {-1, 1}};
+    private static final int[][] BLACK_PAWN_STEPS = {{1, -1}, {1, 1}};
+    private static final long[] KNIGHT_ATTACKS = initAttackTable(KNIGHT_STEPS);
+    private static final long[] KING_ATTACKS = initAttackTable(KING_STEPS);
+    private static final long[][] PAWN_ATTACKS = {initAttackTable(WHITE_PAWN_STEPS), initAttackTable(BLACK_PAWN_STEPS)};
+
+    private LeaperAttacks() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long knightAttacks(final int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(final int square) {
+        return KING_ATTACKS[square];
+    }
+
+    //tiles a pawn of the given alliance standing on square attacks
+    public static long pawnAttacks(final Alliance alliance, final int square) {
+        return PAWN_ATTACKS[alliance.ordinal()][square];
+    }
+
+    private static long[] initAttackTable(final int[][] steps) {
+        final long[] attacks = new long[NUM_TILES];
+        for(int square = 0; square < NUM_TILES; square++) {
+            final int row = square / NUM_TILES_PER_ROW;
+            final int column = square % NUM_TILES_PER_ROW;
+            for(final int[] step : steps) {
+                final int targetRow = row + step[0];
+                final int targetColumn = column + step[1];
+                if(targetRow >= 0 && targetRow < NUM_TILES_PER_ROW &&
+                   targetColumn >= 0 && targetColumn < NUM_TILES_PER_ROW) {
+                    attacks[square] |= BitBoard.squareMask(targetRow * NUM_TILES_PER_ROW + targetColumn);
+                }
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,171 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES;
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+
+//Sliding piece attacks looked up from precomputed "fancy" magic bitboard tables.
+//The magic multipliers were searched offline for this board's tile layout (0 = a8, 63 = h1),
+//the masks and attack tables are filled once when the class is loaded.
+public final class MagicBitBoards {
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final long[] ROOK_MAGICS = {
+            0x8D80041160400083L, 0x0240200040001000L, 0x5300082000110142L, 0x4100100008210004L,
+            0x1280240080020800L, 0x4300080900120400L, 0xC100010000C20004L, 0x1200058204022049L,
+            0x0008800480C00260L, 0x040240002000500CL, 0x0001002000401100L, 0x4821001005002008L,
+            0x0140800400800802L, 0x0082000811048200L, 0x0102000881044200L, 0x0401000200408100L,
+            0x0208288000400080L, 0x1020084000500020L, 0x0010008020001080L, 0x022D010010002208L,
+            0x2104008008000480L, 0x010E808004000200L, 0x0004040008014230L, 0x0020020011009044L,
+            0x0084400080002C88L, 0x0020200040100041L, 0x1000100080200080L, 0x2010204200081203L,
+            0x0201000500120800L, 0x0228040080020080L, 0x6000508400010802L, 0x0008008200084C21L,
+            0x080988C00C800060L, 0x008020008280400CL, 0x0090080020200400L, 0x4800800800801000L,
+            0x2020110005000800L, 0x1001800401800A00L, 0x0000800100800200L, 0x002800A042000411L,
+            0x0080804010288002L, 0x0460002040008080L, 0x0000102001010040L, 0x4010080010008080L,
+            0x0000040801010010L, 0x0006001028060005L, 0x2200C11002040008L, 0x0005000092430026L,
+            0x1040004022800180L, 0x0169920241022200L, 0x4800900080A00280L, 0x200010400A002200L,
+            0x1020100408010100L, 0x0002001008050200L, 0x8021081610511400L, 0x0400040309418600L,
+            0x0040482011008001L, 0x1200210012048442L, 0x0001001008200041L, 0x080A004004082012L,
+            0x0082009044200902L, 0x0242008801100402L, 0x0400100A2100C804L, 0x0000050020805402L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0004101011002888L, 0x0060840096064800L, 0x0108181102300000L, 0x2878208020650080L,
+            0x0001114020100040L, 0x1082080404020081L, 0x0814210802100022L, 0x009A018C45082003L,
+            0x0080400324610200L, 0x0008884108008110L, 0x014308009102003CL, 0x8020040512018200L,
+            0x2000108820000001L, 0x0400050149400060L, 0x8C00404802082040L, 0x2100002101082000L,
+            0x0044114104044C02L, 0x8010204244011401L, 0x8202000114030200L, 0x2C29002020418000L,
+            0x0003024090400105L, 0x8202020540522008L, 0xC240501402080520L, 0xC000840020981808L,
+            0x0020648609300C00L, 0x01092010E40C0402L, 0x0004881010044010L, 0x0040040050410020L,
+            0x0121001015004000L, 0x40404A0009008210L, 0x4244508001080102L, 0x2A41020000260540L,
+            0x0308200500480800L, 0x1001100202091800L, 0x0124040100922201L, 0x0000020080080080L,
+            0x42A0048400008220L, 0x0422082200004041L, 0x0C10041120C04120L, 0x0081084104908406L,
+            0x20A29028080022C2L, 0x0105280210101208L, 0x0110201050080808L, 0x000040A018000100L,
+            0x0810011020840C00L, 0x8002020042000100L, 0x8848900090800A02L, 0x200204005A108881L,
+            0x0001041042081008L, 0x4080820101201001L, 0x0000020044121000L, 0x8000001020884000L,
+            0x4001021222020441L, 0x8024408204211108L, 0x0020081000908000L, 0x4083422C04008120L,
+            0x0110440044422004L, 0x0000144908011020L, 0x0080001482094100L, 0x8200209488420A10L,
+            0x0000000228A08840L, 0x0004181121210102L, 0x01A020124C082494L, 0x00C01020A0808080L
+    };
+    private static final long[] ROOK_MASKS = new long[NUM_TILES];
+    private static final long[] BISHOP_MASKS = new long[NUM_TILES];
+    private static final int[] ROOK_SHIFTS = new int[NUM_TILES];
+    private static final int[] BISHOP_SHIFTS = new int[NUM_TILES];
+    private static final int[] ROOK_OFFSETS = new int[NUM_TILES];
+    private static final int[] BISHOP_OFFSETS = new int[NUM_TILES];
+    private static final long[] ROOK_ATTACKS = initAttackTable(ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+    private static final long[] BISHOP_ATTACKS = initAttackTable(BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+    private static final long[][] SQUARES_BETWEEN = new long[NUM_TILES][NUM_TILES];
+    private static final long[][] LINES_THROUGH = new long[NUM_TILES][NUM_TILES];
+    static {
+        initLineTables();
+    }
+
+    private MagicBitBoards() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long rookAttacks(final int square, final long occupancy) {
+        return ROOK_ATTACKS[ROOK_OFFSETS[square] +
+                (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(final int square, final long occupancy) {
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[square] +
+                (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(final int square, final long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    //tiles strictly between the two tiles if they share a rank, file or diagonal, 0 otherwise
+    public static long squaresBetween(final int from, final int to) {
+        return SQUARES_BETWEEN[from][to];
+    }
+
+    //the whole rank, file or diagonal through both tiles (edge to edge), 0 if they are not aligned
+    public static long lineThrough(final int from, final int to) {
+        return LINES_THROUGH[from][to];
+    }
+
+    private static void initLineTables() {
+        for(int from = 0; from < NUM_TILES; from++) {
+            final long fromMask = BitBoard.squareMask(from);
+            for(int to = 0; to < NUM_TILES; to++) {
+                if(from == to) {
+                    continue;
+                }
+                final long toMask = BitBoard.squareMask(to);
+                if((rookAttacks(from, 0L) & toMask) != 0) {
+                    SQUARES_BETWEEN[from][to] = rookAttacks(from, toMask) & rookAttacks(to, fromMask);
+                    LINES_THROUGH[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | fromMask | toMask;
+                } else if((bishopAttacks(from, 0L) & toMask) != 0) {
+                    SQUARES_BETWEEN[from][to] = bishopAttacks(from, toMask) & bishopAttacks(to, fromMask);
+                    LINES_THROUGH[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | fromMask | toMask;
+                }
+            }
+        }
+    }
+
+    private static long[] initAttackTable(final int[][] directions,
+                                          final long[] magics,
+                                          final long[] masks,
+                                          final int[] shifts,
+                                          final int[] offsets) {
+        int tableSize = 0;
+        for(int square = 0; square < NUM_TILES; square++) {
+            masks[square] = calculateRelevantOccupancy(square, directions);
+            final int relevantBits = Long.bitCount(masks[square]);
+            shifts[square] = NUM_TILES - relevantBits;
+            offsets[square] = tableSize;
+            tableSize += 1 << relevantBits;
+        }
+        final long[] attacks = new long[tableSize];
+        for(int square = 0; square < NUM_TILES; square++) {
+            final long mask = masks[square];
+            long occupancy = 0L;
+            //walk every subset of the mask (Carry-Rippler)
+            do {
+                final int index = offsets[square] + (int) ((occupancy * magics[square]) >>> shifts[square]);
+                attacks[index] = calculateSlidingAttacks(square, occupancy, directions);
+                occupancy = (occupancy - mask) & mask;
+            } while(occupancy != 0);
+        }
+        return attacks;
+    }
+
+    private static long calculateRelevantOccupancy(final int square, final int[][] directions) {
+        long mask = 0L;
+        for(final int[] direction : directions) {
+            int row = square / NUM_TILES_PER_ROW + direction[0];
+            int column = square % NUM_TILES_PER_ROW + direction[1];
+            while(isOnBoard(row + direction[0], column + direction[1])) {
+                mask |= BitBoard.squareMask(row * NUM_TILES_PER_ROW + column);
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long calculateSlidingAttacks(final int square, final long occupancy, final int[][] directions) {
+        long attacks = 0L;
+        for(final int[] direction : directions) {
+            int row = square / NUM_TILES_PER_ROW + direction[0];
+            int column = square % NUM_TILES_PER_ROW + direction[1];
+            while(isOnBoard(row, column)) {
+                final long target = BitBoard.squareMask(row * NUM_TILES_PER_ROW + column);
+                attacks |= target;
+                if((occupancy & target) != 0) {
+                    break;
+                }
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(final int row, final int column) {
+        return row >= 0 && row < NUM_TILES_PER_ROW && column >= 0 && column < NUM_TILES_PER_ROW;
+    }
+}
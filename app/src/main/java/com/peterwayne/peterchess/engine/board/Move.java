@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 
 import com.peterwayne.peterchess.engine.pieces.Pawn;
 import com.peterwayne.peterchess.engine.pieces.Piece;
+import com.peterwayne.peterchess.engine.pieces.PieceUtils;
 import com.peterwayne.peterchess.engine.pieces.Rook;
 
 import java.util.Objects;
@@ -69,21 +70,35 @@ public abstract class Move {
 
     public Board execute()
     {
-        Board.Builder builder = new Board.Builder();
-        for(final Piece piece : this.board.getCurrentPlayer().getActivePieces())
+        final Board.Builder builder = new Board.Builder(this.board);
+        builder.removePiece(this.movedPiece.getPiecePosition());
+        final Piece placedPiece = this.movedPiece.movePiece(this);
+        builder.setPiece(placedPiece);
+        builder.setMoveMaker(this.board.getCurrentPlayer().getOpponent().getAlliance());
+        builder.setZobristHash(calculateZobristHash(placedPiece, null));
+        return builder.build();
+    }
+    //key of the board after this move, updated from the current board's key instead of rebuilt.
+    //placedPiece is what ends up on the destination, enPassantPawn the new board's en passant pawn
+    long calculateZobristHash(final Piece placedPiece, final Pawn enPassantPawn) {
+        long hash = this.board.getZobristHash() ^ Zobrist.sideToMoveKey() ^
+                Zobrist.pieceKey(this.movedPiece) ^ Zobrist.pieceKey(placedPiece);
+        if(isAttack())
         {
-            if(!this.movedPiece.equals(piece))
-            {
-                builder.setPiece(piece);
-            }
+            hash ^= Zobrist.pieceKey(getAttackedPiece());
         }
-        for(final Piece piece : this.board.getCurrentPlayer().getOpponent().getActivePieces())
+        final int castlingRights = this.board.getCastlingRights();
+        hash ^= Zobrist.castlingKey(castlingRights) ^ Zobrist.castlingKey(castlingRights &
+                SearchBoard.castlingMask(this.movedPiece.getPiecePosition()) & SearchBoard.castlingMask(this.destinationCoordinate));
+        if(this.board.getEnPassantPawn() != null)
         {
-            builder.setPiece(piece);
+            hash ^= Zobrist.enPassantKey(this.board.getEnPassantPawn().getPiecePosition());
         }
-        builder.setPiece(this.movedPiece.movePiece(this));
-        builder.setMoveMaker(this.board.getCurrentPlayer().getOpponent().getAlliance());
-        return builder.build();
+        if(enPassantPawn != null)
+        {
+            hash ^= Zobrist.enPassantKey(enPassantPawn.getPiecePosition());
+        }
+        return hash;
     }
     String disambiguationFile() {
         for(final Move move : this.board.getCurrentPlayer().getLegalMoves())
@@ -200,22 +215,13 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-            for(final Piece piece: this.board.getCurrentPlayer().getActivePieces())
-            {
-                if(!this.movedPiece.equals(piece))
-                {
-                    builder.setPiece(piece);
-                }
-            }
-            for(final Piece piece : this.board.getCurrentPlayer().getOpponent().getActivePieces())
-            {
-                builder.setPiece(piece);
-            }
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.removePiece(this.movedPiece.getPiecePosition());
             final Pawn movedPawn = (Pawn) this.movedPiece.movePiece(this);
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.getCurrentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash(movedPawn, movedPawn));
             return builder.build();
         }
 
@@ -239,21 +245,12 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board pawnMovedBoard = this.decorateMove.execute();
-            final Board.Builder builder = new Board.Builder();
-            for(final Piece piece : pawnMovedBoard.getCurrentPlayer().getActivePieces())
-            {
-                if(!this.promotedPawn.equals(piece))
-                {
-                    builder.setPiece(piece);
-                }
-            }
-            for(final Piece piece : pawnMovedBoard.getCurrentPlayer().getOpponent().getActivePieces())
-            {
-                builder.setPiece(piece);
-            }
-            builder.setPiece(this.promotedPawn.getPromotionPiece().movePiece(this));
-            builder.setMoveMaker(pawnMovedBoard.getCurrentPlayer().getAlliance());
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.removePiece(this.promotedPawn.getPiecePosition());
+            final Piece promotionPiece = this.promotedPawn.getPromotionPiece().movePiece(this);
+            builder.setPiece(promotionPiece);
+            builder.setMoveMaker(this.board.getCurrentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash(promotionPiece, null));
             return builder.build();
         }
         @Override
@@ -295,23 +292,13 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-            for(final Piece piece: this.board.getCurrentPlayer().getActivePieces())
-            {
-                if(!this.movedPiece.equals(piece))
-                {
-                    builder.setPiece(piece);
-                }
-            }
-            for(final Piece piece : this.board.getCurrentPlayer().getOpponent().getActivePieces())
-            {
-                if(!piece.equals(this.getAttackedPiece()))
-                {
-                    builder.setPiece(piece);
-                }
-            }
-            builder.setPiece(movedPiece.movePiece(this));
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.removePiece(this.movedPiece.getPiecePosition());
+            builder.removePiece(this.getAttackedPiece().getPiecePosition());
+            final Piece placedPiece = movedPiece.movePiece(this);
+            builder.setPiece(placedPiece);
             builder.setMoveMaker(this.board.getCurrentPlayer().getOpponent().getAlliance());
+            builder.setZobristHash(calculateZobristHash(placedPiece, null));
             return builder.build();
         }
 
@@ -358,18 +345,17 @@ public abstract class Move {
 
         @Override
         public Board execute() {
-            final Board.Builder builder = new Board.Builder();
-            for(final Piece piece : this.board.getAllPieces()) {
-                if(!this.movedPiece.equals(piece) && !this.castleRook.equals(piece))
-                {
-                    builder.setPiece(piece);
-                }
-            }
-            builder.setPiece(this.movedPiece.movePiece(this));
+            final Board.Builder builder = new Board.Builder(this.board);
+            builder.removePiece(this.movedPiece.getPiecePosition());
+            builder.removePiece(this.castleRook.getPiecePosition());
+            final Piece placedPiece = this.movedPiece.movePiece(this);
+            builder.setPiece(placedPiece);
             //set a new rook
-            builder.setPiece(new Rook(this.castleRook.getPieceAlliance(), this.castleRookDestination, false));
+            final Rook movedRook = PieceUtils.getRook(this.castleRook.getPieceAlliance(), this.castleRookDestination, false);
+            builder.setPiece(movedRook);
             builder.setMoveMaker(this.board.getCurrentPlayer().getOpponent().getAlliance());
-            builder.setMoveTransition(this);
+            builder.setZobristHash(calculateZobristHash(placedPiece, null) ^
+                    Zobrist.pieceKey(this.castleRook) ^ Zobrist.pieceKey(movedRook));
             return builder.build();
         }
     }
@@ -438,6 +424,43 @@ public abstract class Move {
             return NULL_MOVE;
         }
 
+        //the Move object for an encoded SearchBoard move of the player to move on board
+        public static Move createMove(final Board board,
+                                      final int move) {
+            for(final Move legalMove : board.getCurrentPlayer().getLegalMoves())
+            {
+                if(legalMove.getCurrentCoordinate() == SearchBoard.fromSquare(move)
+                   && legalMove.getDestinationCoordinate() == SearchBoard.toSquare(move)) {
+                    return legalMove;
+                }
+            }
+            return NULL_MOVE;
+        }
+
+        //the SearchBoard encoding of a move, the inverse of createMove(Board, int)
+        public static int encodeMove(final Move move) {
+            final int from = move.getCurrentCoordinate();
+            final int to = move.getDestinationCoordinate();
+            if(move instanceof PawnPromotion) {
+                return SearchBoard.createMove(from, to,
+                        move.isAttack() ? SearchBoard.PROMOTION_CAPTURE : SearchBoard.PROMOTION,
+                        Piece.PieceType.QUEEN.ordinal());
+            }
+            final int flag;
+            if(move instanceof KingSideCastleMove) {
+                flag = SearchBoard.KING_SIDE_CASTLE;
+            } else if(move instanceof QueenSideCastleMove) {
+                flag = SearchBoard.QUEEN_SIDE_CASTLE;
+            } else if(move instanceof PawnEnPassantAttackMove) {
+                flag = SearchBoard.EN_PASSANT;
+            } else if(move instanceof PawnJump) {
+                flag = SearchBoard.DOUBLE_PAWN_PUSH;
+            } else {
+                flag = move.isAttack() ? SearchBoard.CAPTURE : SearchBoard.QUIET;
+            }
+            return SearchBoard.createMove(from, to, flag);
+        }
+
         public static Move getNullMove() {
             return NULL_MOVE;
         }
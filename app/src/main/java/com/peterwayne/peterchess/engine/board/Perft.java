@@ -0,0 +1,295 @@
+package com.peterwayne.peterchess.engine.board;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts the leaves of the legal move tree to a fixed depth. The counts of standard positions are
+//known, so perft checks the move generator and its timing gives the generator's speed.
+public final class Perft {
+    private Perft() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    //leaf count after depth plies; the strictly legal moves are the ones Player.makeMove accepts,
+    //so the last ply is counted from the move list without executing its moves
+    public static long perft(final Board board, final int depth) {
+        return perft(board, depth, null);
+    }
+
+    //perft split by root move, keyed by the move in coordinate notation (e2e4, e7e8q)
+    public static Map<String, Long> divide(final Board board, final int depth) {
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        for(final Move move : board.getCurrentPlayer().getStrictlyLegalMoves()) {
+            divide.put(toCoordinateNotation(move), perft(move.execute(), depth - 1));
+        }
+        return Collections.unmodifiableMap(divide);
+    }
+
+    //divide with timing, for reports and nodes per second
+    public static Result run(final Board board, final int depth) {
+        checkDepth(depth);
+        final long startTime = System.nanoTime();
+        final Map<String, Long> divide = divide(board, depth);
+        final long elapsedNanos = System.nanoTime() - startTime;
+        final Map<String, ThreadStats> threadStats = new LinkedHashMap<>();
+        final ThreadStats stats = new ThreadStats();
+        stats.add(sum(divide), elapsedNanos);
+        threadStats.put(Thread.currentThread().getName(), stats);
+        return new Result(depth, sum(divide), elapsedNanos, divide, threadStats, 0, 0);
+    }
+
+    //divide with the root moves spread over a fork-join pool of the given size. With hashTableMegabytes
+    //above zero the subtree counts are shared between the threads through a table keyed by
+    //Zobrist hash and depth, so transpositions below the root are only counted once.
+    public static Result runParallel(final Board board,
+                                     final int depth,
+                                     final int threads,
+                                     final int hashTableMegabytes) {
+        checkDepth(depth);
+        final HashTable table = hashTableMegabytes > 0 ? new HashTable(hashTableMegabytes) : null;
+        final Map<String, ThreadStats> threadStats = new ConcurrentHashMap<>();
+        final List<String> rootMoves = new ArrayList<>();
+        final List<Callable<Long>> tasks = new ArrayList<>();
+        for(final Move move : board.getCurrentPlayer().getStrictlyLegalMoves()) {
+            rootMoves.add(toCoordinateNotation(move));
+            tasks.add(() -> {
+                final long taskStartTime = System.nanoTime();
+                final long nodes = perft(move.execute(), depth - 1, table);
+                final ThreadStats stats = threadStats.computeIfAbsent(Thread.currentThread().getName(), name -> new ThreadStats());
+                stats.add(nodes, System.nanoTime() - taskStartTime);
+                return nodes;
+            });
+        }
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        final long startTime = System.nanoTime();
+        final Map<String, Long> divide = new LinkedHashMap<>();
+        try {
+            final List<Future<Long>> results = pool.invokeAll(tasks);
+            for(int i = 0; i < results.size(); i++) {
+                divide.put(rootMoves.get(i), results.get(i).get());
+            }
+        } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Perft interrupted", e);
+        } catch(final ExecutionException e) {
+            throw new RuntimeException("Perft failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        return new Result(depth, sum(divide), elapsedNanos, Collections.unmodifiableMap(divide),
+                new LinkedHashMap<>(threadStats),
+                table != null ? table.probes.sum() : 0,
+                table != null ? table.hits.sum() : 0);
+    }
+
+    private static long perft(final Board board, final int depth, final HashTable table) {
+        if(depth == 0) {
+            return 1;
+        }
+        if(depth == 1) {
+            return board.getCurrentPlayer().getStrictlyLegalMoves().size();
+        }
+        final long hash = board.getZobristHash();
+        if(table != null) {
+            final long cachedNodes = table.probe(hash, depth);
+            if(cachedNodes >= 0) {
+                return cachedNodes;
+            }
+        }
+        long nodes = 0;
+        for(final Move move : board.getCurrentPlayer().getStrictlyLegalMoves()) {
+            nodes += perft(move.execute(), depth - 1, table);
+        }
+        if(table != null) {
+            table.store(hash, depth, nodes);
+        }
+        return nodes;
+    }
+
+    private static void checkDepth(final int depth) {
+        if(depth < 1) {
+            throw new RuntimeException("Perft depth must be at least 1");
+        }
+    }
+
+    private static long sum(final Map<String, Long> divide) {
+        long nodes = 0;
+        for(final long count : divide.values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    static String toCoordinateNotation(final Move move) {
+        return BoardUtils.INSTANCE.getPositionAtCoordinate(move.getCurrentCoordinate()) +
+               BoardUtils.INSTANCE.getPositionAtCoordinate(move.getDestinationCoordinate()) +
+               (move instanceof Move.PawnPromotion ? "q" : "");
+    }
+
+    //Always-replace table shared by all perft threads without locks. Each slot holds the data
+    //(node count and depth) and the key XOR the data, so a slot torn by two threads writing at
+    //once fails the key check instead of returning a wrong count.
+    private static final class HashTable {
+        private static final int ENTRY_BYTES = 16;
+        private static final int DEPTH_BITS = 6;
+        private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+        private final long[] keys;
+        private final long[] data;
+        private final int mask;
+        private final LongAdder probes = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+
+        HashTable(final int megabytes) {
+            final long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+            final int size = (int) Math.min(entries, 1 << 30);
+            this.keys = new long[size];
+            this.data = new long[size];
+            this.mask = size - 1;
+        }
+
+        //the node count stored for the position at this depth, -1 when there is none
+        long probe(final long hash, final int depth) {
+            this.probes.increment();
+            final int index = index(hash, depth);
+            final long entry = this.data[index];
+            if((this.keys[index] ^ entry) == hash && (entry & DEPTH_MASK) == depth) {
+                this.hits.increment();
+                return entry >>> DEPTH_BITS;
+            }
+            return -1;
+        }
+
+        void store(final long hash, final int depth, final long nodes) {
+            final int index = index(hash, depth);
+            final long entry = (nodes << DEPTH_BITS) | depth;
+            this.data[index] = entry;
+            this.keys[index] = hash ^ entry;
+        }
+
+        //the same position at different depths goes to different slots
+        private int index(final long hash, final int depth) {
+            return (int) ((hash ^ (depth * 0x9E3779B97F4A7C15L)) & this.mask);
+        }
+    }
+
+    //nodes counted and time spent by one thread, only written by that thread
+    public static final class ThreadStats {
+        private long nodes;
+        private long elapsedNanos;
+
+        void add(final long nodes, final long elapsedNanos) {
+            this.nodes += nodes;
+            this.elapsedNanos += elapsedNanos;
+        }
+
+        public long getNodes() {
+            return this.nodes;
+        }
+
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        public long getNodesPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.nodes * 1_000_000_000L / this.elapsedNanos;
+        }
+    }
+
+    public static final class Result {
+        private final int depth;
+        private final long nodes;
+        private final long elapsedNanos;
+        private final Map<String, Long> divide;
+        private final Map<String, ThreadStats> threadStats;
+        private final long hashProbes;
+        private final long hashHits;
+
+        Result(final int depth,
+               final long nodes,
+               final long elapsedNanos,
+               final Map<String, Long> divide,
+               final Map<String, ThreadStats> threadStats,
+               final long hashProbes,
+               final long hashHits) {
+            this.depth = depth;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+            this.divide = divide;
+            this.threadStats = Collections.unmodifiableMap(threadStats);
+            this.hashProbes = hashProbes;
+            this.hashHits = hashHits;
+        }
+
+        public int getDepth() {
+            return this.depth;
+        }
+
+        public long getNodes() {
+            return this.nodes;
+        }
+
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        public Map<String, Long> getDivide() {
+            return this.divide;
+        }
+
+        //keyed by thread name
+        public Map<String, ThreadStats> getThreadStats() {
+            return this.threadStats;
+        }
+
+        public long getHashProbes() {
+            return this.hashProbes;
+        }
+
+        public long getHashHits() {
+            return this.hashHits;
+        }
+
+        public double getHashHitRate() {
+            return this.hashProbes == 0 ? 0 : (double) this.hashHits / this.hashProbes;
+        }
+
+        public long getNodesPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.nodes * 1_000_000_000L / this.elapsedNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            for(final Map.Entry<String, Long> entry : this.divide.entrySet()) {
+                sb.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            for(final Map.Entry<String, ThreadStats> entry : this.threadStats.entrySet()) {
+                sb.append(entry.getKey())
+                  .append(": nodes ").append(entry.getValue().getNodes())
+                  .append(", nps ").append(entry.getValue().getNodesPerSecond()).append('\n');
+            }
+            if(this.hashProbes > 0) {
+                sb.append(String.format("hash hits %d/%d (%.1f%%)%n", this.hashHits, this.hashProbes, 100 * getHashHitRate()));
+            }
+            sb.append("depth ").append(this.depth)
+              .append(", nodes ").append(this.nodes)
+              .append(", time ").append(this.elapsedNanos / 1_000_000).append(" ms")
+              .append(", nps ").append(getNodesPerSecond());
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,596 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static com.peterwayne.peterchess.engine.board.BitBoard.BISHOP;
+import static com.peterwayne.peterchess.engine.board.BitBoard.KING;
+import static com.peterwayne.peterchess.engine.board.BitBoard.KNIGHT;
+import static com.peterwayne.peterchess.engine.board.BitBoard.NO_PIECE;
+import static com.peterwayne.peterchess.engine.board.BitBoard.NUM_PIECE_TYPES;
+import static com.peterwayne.peterchess.engine.board.BitBoard.PAWN;
+import static com.peterwayne.peterchess.engine.board.BitBoard.QUEEN;
+import static com.peterwayne.peterchess.engine.board.BitBoard.ROOK;
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES;
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+
+import androidx.annotation.NonNull;
+
+import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.pieces.King;
+import com.peterwayne.peterchess.engine.pieces.Pawn;
+import com.peterwayne.peterchess.engine.pieces.Piece;
+
+import java.util.Arrays;
+
+//Mutable copy of a Board for the search: moves are ints applied with makeMove and taken back with unmakeMove
+public final class SearchBoard {
+    public static final int MAX_PLY = 256;
+    public static final int MAX_MOVES = 256;
+    public static final int NO_MOVE = 0;
+
+    //move layout: bits 0-5 source tile, bits 6-11 destination tile, bits 12-15 flag,
+    //bits 16-18 promotion piece type (ordinal of Piece.PieceType, only set on promotions)
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_SIDE_CASTLE = 2;
+    public static final int QUEEN_SIDE_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    private static final int[] CASTLING_MASKS = initCastlingMasks();
+    private static final int ALL_MOVES = 0;
+    private static final int CAPTURE_MOVES = 1;
+    private static final int QUIET_MOVES = 2;
+
+    private final BitBoard bitBoard;
+    private Alliance sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private long zobristHash;
+    private int ply;
+    private final int[] moveStack = new int[MAX_PLY];
+    private final int[] capturedStack = new int[MAX_PLY];
+    private final int[] castlingStack = new int[MAX_PLY];
+    private final int[] enPassantStack = new int[MAX_PLY];
+    private final long[] hashStack = new long[MAX_PLY];
+    //game state of the position at each ply, null until asked for; cleared when a move reaches the ply
+    private final GameState[] gameStateStack = new GameState[MAX_PLY + 1];
+    private final int[] scratchMoves = new int[MAX_MOVES];
+    private final int[] exchangeGains = new int[BoardUtils.MAX_EXCHANGE_LENGTH];
+
+    public SearchBoard(final Board board) {
+        this.bitBoard = new BitBoard(board.getBitBoard());
+        this.sideToMove = board.getCurrentPlayer().getAlliance();
+        this.castlingRights = calculateCastlingRights(board, Alliance.WHITE) | calculateCastlingRights(board, Alliance.BLACK);
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        this.enPassantSquare = enPassantPawn != null ?
+                enPassantPawn.getPiecePosition() - enPassantPawn.getPieceAlliance().getDirection() * NUM_TILES_PER_ROW : -1;
+        this.zobristHash = calculateZobristHash();
+        this.ply = 0;
+    }
+
+    public static int createMove(final int from, final int to, final int flag) {
+        return from | (to << 6) | (flag << 12);
+    }
+
+    public static int createMove(final int from, final int to, final int flag, final int promotionPieceType) {
+        return createMove(from, to, flag) | (promotionPieceType << 16);
+    }
+
+    public static int fromSquare(final int move) {
+        return move & 0x3F;
+    }
+
+    public static int toSquare(final int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int moveFlag(final int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static int promotionPieceType(final int move) {
+        return (move >>> 16) & 0x7;
+    }
+
+    public static boolean isCapture(final int move) {
+        return (moveFlag(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(final int move) {
+        return (moveFlag(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(final int move) {
+        final int flag = moveFlag(move);
+        return flag == KING_SIDE_CASTLE || flag == QUEEN_SIDE_CASTLE;
+    }
+
+    public BitBoard getBitBoard() {
+        return this.bitBoard;
+    }
+
+    public Alliance getSideToMove() {
+        return this.sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return this.enPassantSquare;
+    }
+
+    public long getZobristHash() {
+        return this.zobristHash;
+    }
+
+    public int getPly() {
+        return this.ply;
+    }
+
+    //the move made pliesAgo plies before the current position, NO_MOVE past the root
+    public int getLastMove(final int pliesAgo) {
+        final int index = this.ply - 1 - pliesAgo;
+        return index >= 0 ? this.moveStack[index] : NO_MOVE;
+    }
+
+    public int getKingSquare(final Alliance alliance) {
+        return this.bitBoard.getKingSquare(alliance);
+    }
+
+    public boolean isInCheck() {
+        return this.bitBoard.isSquareAttacked(getKingSquare(this.sideToMove), this.sideToMove.getOpposite());
+    }
+
+    public boolean hasLegalMove() {
+        final int numMoves = generateMoves(this.sideToMove, this.scratchMoves, 0);
+        final long pinned = this.bitBoard.getPinnedPieces(this.sideToMove);
+        final long checkers = this.bitBoard.getCheckers(this.sideToMove);
+        for(int i = 0; i < numMoves; i++) {
+            if(isLegalMove(this.scratchMoves[i], pinned, checkers)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public GameState getGameState() {
+        if(this.gameStateStack[this.ply] == null) {
+            this.gameStateStack[this.ply] = GameState.of(hasLegalMove(), isInCheck());
+        }
+        return this.gameStateStack[this.ply];
+    }
+
+    public boolean isEndGame() {
+        return getGameState().isGameOver();
+    }
+
+    //number of pseudo legal moves, the same count Player.getLegalMoves() gives for a Board
+    public int countMoves(final Alliance alliance) {
+        return generateMoves(alliance, this.scratchMoves, 0);
+    }
+
+    public int generateMoves(final int[] moves, final int start) {
+        return generateMoves(this.sideToMove, moves, start);
+    }
+
+    //pseudo legal moves of the alliance written from moves[start], returns the index after the last one
+    public int generateMoves(final Alliance alliance, final int[] moves, final int start) {
+        return generateMoves(alliance, moves, start, ALL_MOVES);
+    }
+
+    //strictly legal moves of the side to move written from moves[start], returns the index after the last one.
+    //Pins and checks are worked out once up front, so no move is played to find out whether it is legal
+    public int generateLegalMoves(final int[] moves, final int start) {
+        return generateLegalMoves(moves, start, ALL_MOVES);
+    }
+
+    //legal captures, en passant and promotions only
+    public int generateLegalCaptures(final int[] moves, final int start) {
+        return generateLegalMoves(moves, start, CAPTURE_MOVES);
+    }
+
+    //legal moves that are neither captures nor promotions, castles included
+    public int generateLegalQuiets(final int[] moves, final int start) {
+        return generateLegalMoves(moves, start, QUIET_MOVES);
+    }
+
+    //whether a move remembered from another position (hash move, killer) can be played here
+    public boolean isLegalMove(final int move) {
+        if(move == NO_MOVE) {
+            return false;
+        }
+        final int from = fromSquare(move);
+        final int pieceCode = this.bitBoard.getPieceCode(from);
+        if(pieceCode == NO_PIECE || BitBoard.allianceOf(pieceCode) != this.sideToMove) {
+            return false;
+        }
+        final int numMoves = generatePieceMoves(this.sideToMove, from, pieceCode % NUM_PIECE_TYPES, this.scratchMoves, 0, ALL_MOVES);
+        for(int i = 0; i < numMoves; i++) {
+            if(this.scratchMoves[i] == move) {
+                return isLegalMove(move, this.bitBoard.getPinnedPieces(this.sideToMove), this.bitBoard.getCheckers(this.sideToMove));
+            }
+        }
+        return false;
+    }
+
+    //static exchange evaluation of a capture or promotion, see BoardUtils.see; the board is confined
+    //to one search thread, so its scratch space is shared by all the SEE calls of that search
+    public int see(final int move) {
+        return BoardUtils.see(this, move, this.exchangeGains);
+    }
+
+    //the exchange for the piece on from taking the enemy piece on to, whoever is to move
+    public int see(final int from, final int to) {
+        return BoardUtils.see(this.bitBoard, from, to, this.exchangeGains);
+    }
+
+    //whether the legal move checks the enemy king, worked out from the attack tables without playing it:
+    //directly by the moved, promoted or castled-with piece, or by a slider the move uncovers
+    public boolean givesCheck(final int move) {
+        final int from = fromSquare(move);
+        final int to = toSquare(move);
+        final int flag = moveFlag(move);
+        final Alliance mover = this.sideToMove;
+        final long enemyKing = BitBoard.squareMask(getKingSquare(mover.getOpposite()));
+        long vacated = BitBoard.squareMask(from);
+        long occupancy = (this.bitBoard.getOccupancy() & ~vacated) | BitBoard.squareMask(to);
+        int checkingSquare = to;
+        int checkingPieceType = (flag & PROMOTION) != 0 ? promotionPieceType(move) : this.bitBoard.getPieceCode(from) % NUM_PIECE_TYPES;
+        if(flag == EN_PASSANT) {
+            occupancy &= ~BitBoard.squareMask(to - mover.getDirection() * NUM_TILES_PER_ROW);
+        } else if(flag == KING_SIDE_CASTLE || flag == QUEEN_SIDE_CASTLE) {
+            final int rookFrom = flag == KING_SIDE_CASTLE ? from + 3 : from - 4;
+            checkingSquare = flag == KING_SIDE_CASTLE ? from + 1 : from - 1;
+            checkingPieceType = ROOK;
+            vacated |= BitBoard.squareMask(rookFrom);
+            occupancy = (occupancy & ~BitBoard.squareMask(rookFrom)) | BitBoard.squareMask(checkingSquare);
+        }
+        if((pieceAttacks(mover, checkingPieceType, checkingSquare, occupancy) & enemyKing) != 0) {
+            return true;
+        }
+        final int kingSquare = Long.numberOfTrailingZeros(enemyKing);
+        final long queens = this.bitBoard.getPieces(mover, Piece.PieceType.QUEEN);
+        final long bishops = (this.bitBoard.getPieces(mover, Piece.PieceType.BISHOP) | queens) & ~vacated;
+        final long rooks = (this.bitBoard.getPieces(mover, Piece.PieceType.ROOK) | queens) & ~vacated;
+        return (MagicBitBoards.bishopAttacks(kingSquare, occupancy) & bishops) != 0 ||
+               (MagicBitBoards.rookAttacks(kingSquare, occupancy) & rooks) != 0;
+    }
+
+    //squares a piece of the alliance on the square attacks; a king never gives check
+    private static long pieceAttacks(final Alliance alliance, final int pieceType, final int square, final long occupancy) {
+        if(pieceType == PAWN) {
+            return LeaperAttacks.pawnAttacks(alliance, square);
+        } else if(pieceType == KNIGHT) {
+            return LeaperAttacks.knightAttacks(square);
+        } else if(pieceType == BISHOP) {
+            return MagicBitBoards.bishopAttacks(square, occupancy);
+        } else if(pieceType == ROOK) {
+            return MagicBitBoards.rookAttacks(square, occupancy);
+        } else if(pieceType == QUEEN) {
+            return MagicBitBoards.queenAttacks(square, occupancy);
+        }
+        return 0L;
+    }
+
+    private int generateLegalMoves(final int[] moves, final int start, final int kind) {
+        final int end = generateMoves(this.sideToMove, moves, start, kind);
+        final long pinned = this.bitBoard.getPinnedPieces(this.sideToMove);
+        final long checkers = this.bitBoard.getCheckers(this.sideToMove);
+        int count = start;
+        for(int i = start; i < end; i++) {
+            if(isLegalMove(moves[i], pinned, checkers)) {
+                moves[count++] = moves[i];
+            }
+        }
+        return count;
+    }
+
+    //pseudo legal move of the side to move going from -> to, NO_MOVE if there is none
+    public int findMove(final int from, final int to) {
+        final int numMoves = generateMoves(this.sideToMove, this.scratchMoves, 0);
+        for(int i = 0; i < numMoves; i++) {
+            final int move = this.scratchMoves[i];
+            if(fromSquare(move) == from && toSquare(move) == to) {
+                return move;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    //plays the move; returns false and leaves the board untouched if it would leave the mover in check
+    public boolean makeMove(final int move) {
+        final int from = fromSquare(move);
+        final int to = toSquare(move);
+        final int flag = moveFlag(move);
+        final Alliance mover = this.sideToMove;
+        this.moveStack[this.ply] = move;
+        this.castlingStack[this.ply] = this.castlingRights;
+        this.enPassantStack[this.ply] = this.enPassantSquare;
+        this.hashStack[this.ply] = this.zobristHash;
+        long hash = this.zobristHash ^ Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantSquare);
+        int capturedPiece = NO_PIECE;
+        if(flag == EN_PASSANT) {
+            final int capturedSquare = to - mover.getDirection() * NUM_TILES_PER_ROW;
+            capturedPiece = this.bitBoard.removePiece(capturedSquare);
+            hash ^= Zobrist.pieceKey(capturedPiece, capturedSquare);
+        } else if((flag & CAPTURE) != 0) {
+            capturedPiece = this.bitBoard.removePiece(to);
+            hash ^= Zobrist.pieceKey(capturedPiece, to);
+        }
+        final int movedPiece = this.bitBoard.removePiece(from);
+        final int placedPiece = (flag & PROMOTION) != 0 ? mover.ordinal() * NUM_PIECE_TYPES + promotionPieceType(move) : movedPiece;
+        this.bitBoard.setPiece(placedPiece, to);
+        hash ^= Zobrist.pieceKey(movedPiece, from) ^ Zobrist.pieceKey(placedPiece, to);
+        if(flag == KING_SIDE_CASTLE || flag == QUEEN_SIDE_CASTLE) {
+            final int rookFrom = flag == KING_SIDE_CASTLE ? from + 3 : from - 4;
+            final int rookTo = flag == KING_SIDE_CASTLE ? from + 1 : from - 1;
+            final int rook = this.bitBoard.removePiece(rookFrom);
+            this.bitBoard.setPiece(rook, rookTo);
+            hash ^= Zobrist.pieceKey(rook, rookFrom) ^ Zobrist.pieceKey(rook, rookTo);
+        }
+        this.castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        this.enPassantSquare = flag == DOUBLE_PAWN_PUSH ? (from + to) / 2 : -1;
+        hash ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantSquare) ^ Zobrist.sideToMoveKey();
+        this.zobristHash = hash;
+        this.capturedStack[this.ply] = capturedPiece;
+        this.sideToMove = mover.getOpposite();
+        this.ply++;
+        if(this.bitBoard.isSquareAttacked(getKingSquare(mover), this.sideToMove)) {
+            unmakeMove();
+            return false;
+        }
+        this.gameStateStack[this.ply] = null;
+        return true;
+    }
+
+    public void unmakeMove() {
+        this.ply--;
+        final int move = this.moveStack[this.ply];
+        final int from = fromSquare(move);
+        final int to = toSquare(move);
+        final int flag = moveFlag(move);
+        final Alliance mover = this.sideToMove.getOpposite();
+        final int placedPiece = this.bitBoard.removePiece(to);
+        this.bitBoard.setPiece((flag & PROMOTION) != 0 ? mover.ordinal() * NUM_PIECE_TYPES + PAWN : placedPiece, from);
+        final int capturedPiece = this.capturedStack[this.ply];
+        if(flag == EN_PASSANT) {
+            this.bitBoard.setPiece(capturedPiece, to - mover.getDirection() * NUM_TILES_PER_ROW);
+        } else if(capturedPiece != NO_PIECE) {
+            this.bitBoard.setPiece(capturedPiece, to);
+        }
+        if(flag == KING_SIDE_CASTLE || flag == QUEEN_SIDE_CASTLE) {
+            final int rookFrom = flag == KING_SIDE_CASTLE ? from + 3 : from - 4;
+            final int rookTo = flag == KING_SIDE_CASTLE ? from + 1 : from - 1;
+            this.bitBoard.setPiece(this.bitBoard.removePiece(rookTo), rookFrom);
+        }
+        this.sideToMove = mover;
+        this.castlingRights = this.castlingStack[this.ply];
+        this.enPassantSquare = this.enPassantStack[this.ply];
+        this.zobristHash = this.hashStack[this.ply];
+    }
+
+    //passes the turn for null-move pruning: only the side to move and the en passant square change
+    public void makeNullMove() {
+        this.moveStack[this.ply] = NO_MOVE;
+        this.castlingStack[this.ply] = this.castlingRights;
+        this.enPassantStack[this.ply] = this.enPassantSquare;
+        this.hashStack[this.ply] = this.zobristHash;
+        this.capturedStack[this.ply] = NO_PIECE;
+        this.zobristHash ^= Zobrist.enPassantKey(this.enPassantSquare) ^ Zobrist.sideToMoveKey();
+        this.enPassantSquare = -1;
+        this.sideToMove = this.sideToMove.getOpposite();
+        this.ply++;
+        this.gameStateStack[this.ply] = null;
+    }
+
+    public void unmakeNullMove() {
+        this.ply--;
+        this.sideToMove = this.sideToMove.getOpposite();
+        this.enPassantSquare = this.enPassantStack[this.ply];
+        this.zobristHash = this.hashStack[this.ply];
+    }
+
+    //whether the position was reached by a null move
+    public boolean isAfterNullMove() {
+        return this.ply > 0 && this.moveStack[this.ply - 1] == NO_MOVE;
+    }
+
+    //pieces other than pawns and the king; without them zugzwang is common and passing is unsafe
+    public boolean hasNonPawnMaterial(final Alliance alliance) {
+        return (this.bitBoard.getOccupancy(alliance) &
+                ~this.bitBoard.getPieces(alliance, Piece.PieceType.PAWN) &
+                ~this.bitBoard.getPieces(alliance, Piece.PieceType.KING)) != 0;
+    }
+
+    public long calculateZobristHash() {
+        long hash = 0L;
+        long occupied = this.bitBoard.getOccupancy();
+        while(occupied != 0) {
+            final int square = Long.numberOfTrailingZeros(occupied);
+            hash ^= Zobrist.pieceKey(this.bitBoard.getPieceCode(square), square);
+            occupied &= occupied - 1;
+        }
+        hash ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantSquare);
+        return this.sideToMove.isBlack() ? hash ^ Zobrist.sideToMoveKey() : hash;
+    }
+
+    private int generateMoves(final Alliance alliance, final int[] moves, final int start, final int kind) {
+        final int base = alliance.ordinal() * NUM_PIECE_TYPES;
+        int count = start;
+        for(int pieceType = PAWN; pieceType <= KING; pieceType++) {
+            long pieces = this.bitBoard.getPieces(base + pieceType);
+            while(pieces != 0) {
+                count = generatePieceMoves(alliance, Long.numberOfTrailingZeros(pieces), pieceType, moves, count, kind);
+                pieces &= pieces - 1;
+            }
+        }
+        return count;
+    }
+
+    private int generatePieceMoves(final Alliance alliance,
+                                   final int from,
+                                   final int pieceType,
+                                   final int[] moves,
+                                   final int start,
+                                   final int kind) {
+        final long enemy = this.bitBoard.getOccupancy(alliance.getOpposite());
+        final long occupied = this.bitBoard.getOccupancy();
+        if(pieceType == PAWN) {
+            return generatePawnMoves(alliance, from, moves, start, enemy, occupied, kind);
+        }
+        final long targets = kind == CAPTURE_MOVES ? enemy : kind == QUIET_MOVES ? ~occupied : ~this.bitBoard.getOccupancy(alliance);
+        if(pieceType == KNIGHT) {
+            return addMoves(from, LeaperAttacks.knightAttacks(from) & targets, enemy, moves, start);
+        } else if(pieceType == BISHOP) {
+            return addMoves(from, MagicBitBoards.bishopAttacks(from, occupied) & targets, enemy, moves, start);
+        } else if(pieceType == ROOK) {
+            return addMoves(from, MagicBitBoards.rookAttacks(from, occupied) & targets, enemy, moves, start);
+        } else if(pieceType == QUEEN) {
+            return addMoves(from, MagicBitBoards.queenAttacks(from, occupied) & targets, enemy, moves, start);
+        }
+        final int count = addMoves(from, LeaperAttacks.kingAttacks(from) & targets, enemy, moves, start);
+        return kind == CAPTURE_MOVES ? count : generateCastles(alliance, from, moves, count);
+    }
+
+    private int generatePawnMoves(final Alliance alliance,
+                                  final int from,
+                                  final int[] moves,
+                                  final int start,
+                                  final long enemy,
+                                  final long occupied,
+                                  final int kind) {
+        int count = start;
+        final int forward = alliance.getDirection() * NUM_TILES_PER_ROW;
+        final boolean[] startRank = alliance.isWhite() ? BoardUtils.SECOND_RANK : BoardUtils.SEVENTH_RANK;
+        final int to = from + forward;
+        if(BoardUtils.isValidTileCoordinate(to) && (occupied & BitBoard.squareMask(to)) == 0) {
+            if(alliance.isPawnPromotionSquare(to)) {
+                if(kind != QUIET_MOVES) {
+                    moves[count++] = createMove(from, to, PROMOTION, QUEEN);
+                }
+            } else if(kind != CAPTURE_MOVES) {
+                moves[count++] = createMove(from, to, QUIET);
+                if(startRank[from] && (occupied & BitBoard.squareMask(to + forward)) == 0) {
+                    moves[count++] = createMove(from, to + forward, DOUBLE_PAWN_PUSH);
+                }
+            }
+        }
+        if(kind == QUIET_MOVES) {
+            return count;
+        }
+        final long attacks = LeaperAttacks.pawnAttacks(alliance, from);
+        long captures = attacks & enemy;
+        while(captures != 0) {
+            final int target = Long.numberOfTrailingZeros(captures);
+            moves[count++] = alliance.isPawnPromotionSquare(target) ?
+                    createMove(from, target, PROMOTION_CAPTURE, QUEEN) : createMove(from, target, CAPTURE);
+            captures &= captures - 1;
+        }
+        if(alliance == this.sideToMove && this.enPassantSquare >= 0 &&
+           (attacks & BitBoard.squareMask(this.enPassantSquare)) != 0) {
+            moves[count++] = createMove(from, this.enPassantSquare, EN_PASSANT);
+        }
+        return count;
+    }
+
+    //same rules as WhitePlayer/BlackPlayer.calculateKingCastles
+    private int generateCastles(final Alliance alliance, final int kingSquare, final int[] moves, final int start) {
+        final int kingSide = alliance.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        final int queenSide = alliance.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        final Alliance opponent = alliance.getOpposite();
+        if((this.castlingRights & (kingSide | queenSide)) == 0 ||
+           this.bitBoard.isSquareAttacked(kingSquare, opponent) ||
+           isKingPawnTrap(kingSquare + alliance.getDirection() * NUM_TILES_PER_ROW, opponent)) {
+            return start;
+        }
+        final long occupied = this.bitBoard.getOccupancy();
+        int count = start;
+        if((this.castlingRights & kingSide) != 0 &&
+           (occupied & (BitBoard.squareMask(kingSquare + 1) | BitBoard.squareMask(kingSquare + 2))) == 0 &&
+           !this.bitBoard.isSquareAttacked(kingSquare + 1, opponent) &&
+           !this.bitBoard.isSquareAttacked(kingSquare + 2, opponent)) {
+            moves[count++] = createMove(kingSquare, kingSquare + 2, KING_SIDE_CASTLE);
+        }
+        if((this.castlingRights & queenSide) != 0 &&
+           (occupied & (BitBoard.squareMask(kingSquare - 1) | BitBoard.squareMask(kingSquare - 2) |
+                        BitBoard.squareMask(kingSquare - 3))) == 0 &&
+           !this.bitBoard.isSquareAttacked(kingSquare - 1, opponent) &&
+           !this.bitBoard.isSquareAttacked(kingSquare - 2, opponent)) {
+            moves[count++] = createMove(kingSquare, kingSquare - 2, QUEEN_SIDE_CASTLE);
+        }
+        return count;
+    }
+
+    private boolean isLegalMove(final int move, final long pinned, final long checkers) {
+        final int to = toSquare(move);
+        final int capturedSquare = moveFlag(move) == EN_PASSANT ? to - this.sideToMove.getDirection() * NUM_TILES_PER_ROW : to;
+        return this.bitBoard.isLegalMove(this.sideToMove, fromSquare(move), to, capturedSquare, pinned, checkers);
+    }
+
+    private boolean isKingPawnTrap(final int frontTile, final Alliance opponent) {
+        return this.bitBoard.getPieceCode(frontTile) == opponent.ordinal() * NUM_PIECE_TYPES + PAWN;
+    }
+
+    private static int addMoves(final int from, long targets, final long enemy, final int[] moves, final int start) {
+        int count = start;
+        while(targets != 0) {
+            final int to = Long.numberOfTrailingZeros(targets);
+            moves[count++] = createMove(from, to, (enemy & BitBoard.squareMask(to)) != 0 ? CAPTURE : QUIET);
+            targets &= targets - 1;
+        }
+        return count;
+    }
+
+    static int calculateCastlingRights(final Board board, final Alliance alliance) {
+        final int kingSquare = alliance.isWhite() ? 60 : 4;
+        final Piece king = board.getPiece(kingSquare);
+        if(!(king instanceof King) || king.getPieceAlliance() != alliance || !king.isFirstMove() ||
+           ((King) king).isCastled() ||
+           !(((King) king).isKingSideCastleCapable() || ((King) king).isQueenSideCastleCapable())) {
+            return 0;
+        }
+        int rights = 0;
+        if(isUnmovedRook(board.getPiece(kingSquare + 3), alliance)) {
+            rights |= alliance.isWhite() ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        }
+        if(isUnmovedRook(board.getPiece(kingSquare - 4), alliance)) {
+            rights |= alliance.isWhite() ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    //the castling rights kept by a move touching square, as the from or to square
+    static int castlingMask(final int square) {
+        return CASTLING_MASKS[square];
+    }
+
+    private static boolean isUnmovedRook(final Piece piece, final Alliance alliance) {
+        return piece != null && piece.getPieceType() == Piece.PieceType.ROOK &&
+               piece.getPieceAlliance() == alliance && piece.isFirstMove();
+    }
+
+    private static int[] initCastlingMasks() {
+        final int[] masks = new int[NUM_TILES];
+        Arrays.fill(masks, WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        masks[60] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        masks[63] &= ~WHITE_KING_SIDE;
+        masks[56] &= ~WHITE_QUEEN_SIDE;
+        masks[4] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        masks[7] &= ~BLACK_KING_SIDE;
+        masks[0] &= ~BLACK_QUEEN_SIDE;
+        return masks;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return this.bitBoard.toString();
+    }
+}
@@ -4,13 +4,18 @@ import androidx.annotation.NonNull;
 
 import com.google.common.collect.ImmutableMap;
 import com.peterwayne.peterchess.engine.pieces.Piece;
+import com.peterwayne.peterchess.engine.pieces.PieceUtils;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 public abstract class Tile {
     protected final int tileCoordinate;
     private static final Map<Integer, EmptyTile> EMPTY_TILES_CACHE = createAllPossibleEmptyTiles();
+    //one tile per flyweight piece, looked up by identity so no hash code is computed
+    private static final Map<Piece, OccupiedTile> OCCUPIED_TILES_CACHE = createAllPossibleOccupiedTiles();
 
     public Tile(int tileCoordinate) {
         this.tileCoordinate = tileCoordinate;
@@ -25,11 +30,25 @@ public abstract class Tile {
         return ImmutableMap.copyOf(emptyTileMap);
     }
 
+    private static Map<Piece, OccupiedTile> createAllPossibleOccupiedTiles() {
+        final Map<Piece, OccupiedTile> occupiedTileMap = new IdentityHashMap<>();
+        for(final Piece piece : PieceUtils.allPieces())
+        {
+            occupiedTileMap.put(piece, new OccupiedTile(piece.getPiecePosition(), piece));
+        }
+        return Collections.unmodifiableMap(occupiedTileMap);
+    }
+
     public int getTileCoordinate() {
         return tileCoordinate;
     }
     public static Tile createTile(final int coordinate, final Piece piece) {
-        return piece!=null ? new OccupiedTile(coordinate,piece) : new EmptyTile(coordinate);
+        if(piece == null)
+        {
+            return EMPTY_TILES_CACHE.get(coordinate);
+        }
+        final OccupiedTile occupiedTile = OCCUPIED_TILES_CACHE.get(piece);
+        return occupiedTile != null ? occupiedTile : new OccupiedTile(coordinate, piece);
     }
     public abstract boolean isTileOccupied();
     public abstract Piece getPiece();
@@ -0,0 +1,58 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES;
+
+import com.peterwayne.peterchess.engine.pieces.Piece;
+
+import java.util.Random;
+
+//Random keys for Zobrist hashing; a position key is the XOR of the keys of everything on it
+public final class Zobrist {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long[][] PIECE_KEYS = new long[BitBoard.NUM_PIECE_CODES][NUM_TILES];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long SIDE_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(SEED);
+        for(final long[] keys : PIECE_KEYS) {
+            for(int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        //no castling rights hashes to nothing so a bare position keeps the same key
+        for(int i = 1; i < CASTLING_KEYS.length; i++) {
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+        for(int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+        SIDE_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+        throw new RuntimeException("Not instantiable!");
+    }
+
+    public static long pieceKey(final int pieceCode, final int square) {
+        return PIECE_KEYS[pieceCode][square];
+    }
+
+    public static long pieceKey(final Piece piece) {
+        return pieceKey(BitBoard.pieceCode(piece.getPieceAlliance(), piece.getPieceType()), piece.getPiecePosition());
+    }
+
+    public static long castlingKey(final int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long enPassantKey(final int enPassantSquare) {
+        return enPassantSquare < 0 ? 0L : EN_PASSANT_KEYS[enPassantSquare % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    //toggled whenever black is to move
+    public static long sideToMoveKey() {
+        return SIDE_TO_MOVE_KEY;
+    }
+}
@@ -2,19 +2,14 @@ package com.peterwayne.peterchess.engine.pieces;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
 import com.peterwayne.peterchess.engine.board.Board;
-import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.LeaperAttacks;
 import com.peterwayne.peterchess.engine.board.Move;
-import com.peterwayne.peterchess.engine.board.Tile;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 
 public class King extends Piece{
-    private final static int[] CANDIDATE_MOVE_COORDINATE = { -9, -8, -7, -1, 1, 7, 8, 9 };
     private final boolean isCastled;
     private final boolean kingSideCastleCapable;
     private final boolean queenSideCastleCapable;
@@ -59,44 +54,13 @@ public class King extends Piece{
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(Board board) {
+    public Collection<Move> calculateLegalMoves(final Board board) {
         //TODO fix legalMoves when the king is being in check
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATE) {
-            final int candidateDestinationCoordinate = this.piecePosition + currentCandidateOffset;
-            if (isFirstColumnExclusion(this.piecePosition, currentCandidateOffset)
-                    || isEighthColumnExclusion(this.piecePosition, currentCandidateOffset)) {
-                continue;
-            }
-            if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                if (!candidateDestinationTile.isTileOccupied()) {
-                    legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                } else {
-                    final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                    final Alliance pieceAtDestinationAlliance = pieceAtDestination.getPieceAlliance();
-                    if (this.pieceAlliance != pieceAtDestinationAlliance) {
-                        legalMoves.add(
-                                new Move.MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                    }
-                }
-            }
-
-        }
-        return ImmutableList.copyOf(legalMoves);
-    }
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.FIRST_COLUMN[currentPosition]
-                && (candidateOffset == -9 || candidateOffset == -1 || candidateOffset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.EIGHTH_COLUMN[currentPosition]
-                && (candidateOffset == -7 || candidateOffset == 1 || candidateOffset == 9);
+        return calculateMovesFromAttacks(board, LeaperAttacks.kingAttacks(this.piecePosition));
     }
     @Override
     public King movePiece(final Move move) {
-        return new King(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(),
+        return PieceUtils.getKing(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(),
                 false, move.isCastlingMove(),false,false);
     }
 
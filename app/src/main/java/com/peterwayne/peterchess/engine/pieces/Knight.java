@@ -2,19 +2,14 @@ package com.peterwayne.peterchess.engine.pieces;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
 import com.peterwayne.peterchess.engine.board.Board;
-import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.LeaperAttacks;
 import com.peterwayne.peterchess.engine.board.Move;
-import com.peterwayne.peterchess.engine.board.Tile;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 public class Knight extends Piece{
-    private static final int[] CANDIDATE_MOVE_COORDINATES = {-17, -15, -10, -6, 6, 10, 15, 17};
     public Knight(final Alliance pieceAlliance,
                   final int piecePosition) {
         super(PieceType.KNIGHT,piecePosition,pieceAlliance,true);
@@ -26,57 +21,13 @@ public class Knight extends Piece{
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(Board board) {
-        List<Move> legalMoves = new ArrayList<>();
-        for(final int currentCandidate : CANDIDATE_MOVE_COORDINATES)
-        {
-            final int candidateDestinationCoordinate = this.piecePosition + currentCandidate;
-            if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate))
-            {
-                if(isFirstColumnExclusion(this.piecePosition,currentCandidate)
-                   ||isSecondColumnExclusion(this.piecePosition,currentCandidate)
-                   ||isSeventhColumnExclusion(this.piecePosition,currentCandidate)
-                   ||isEighthColumnExclusion(this.piecePosition,currentCandidate)) {
-                      continue;
-                }
-                final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                if(!candidateDestinationTile.isTileOccupied())
-                {
-                    legalMoves.add(new Move.MajorMove(board, this,candidateDestinationCoordinate));
-                }else
-                {
-                    final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                    final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-                    if(this.pieceAlliance!=pieceAlliance)
-                    {
-                        legalMoves.add(new Move.MajorAttackMove(board, this, candidateDestinationCoordinate,pieceAtDestination));
-                    }
-                }
-            }
-        }
-        return ImmutableList.copyOf(legalMoves);
+    public Collection<Move> calculateLegalMoves(final Board board) {
+        return calculateMovesFromAttacks(board, LeaperAttacks.knightAttacks(this.piecePosition));
     }
 
-
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.FIRST_COLUMN[currentPosition] &&
-                (candidateOffset == -17 ||candidateOffset == -10 || candidateOffset == 6 || candidateOffset == 15);
-    }
-    private static boolean isSecondColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.SECOND_COLUMN[currentPosition] &&
-                (candidateOffset == -10 ||candidateOffset == 6);
-    }
-    private static boolean isSeventhColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.SEVENTH_COLUMN[currentPosition] &&
-                (candidateOffset == -6 ||candidateOffset == 10);
-    }
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] &&
-                (candidateOffset == -15 ||candidateOffset == -6 || candidateOffset == 10 || candidateOffset == 17);
-    }
     @Override
     public Knight movePiece(final Move move) {
-        return new Knight( move.getMovedPiece().getPieceAlliance(),move.getDestinationCoordinate());
+        return PieceUtils.getKnight(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     @Override
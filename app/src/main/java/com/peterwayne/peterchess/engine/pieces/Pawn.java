@@ -1,19 +1,20 @@
 package com.peterwayne.peterchess.engine.pieces;
 
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES_PER_ROW;
+
 import androidx.annotation.NonNull;
 
 import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.board.BitBoard;
 import com.peterwayne.peterchess.engine.board.Board;
 import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.LeaperAttacks;
 import com.peterwayne.peterchess.engine.board.Move;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 public class Pawn extends Piece{
-    private final static int[] CANDIDATE_MOVE_COORDINATE = { 8, 16, 7, 9 };
     public Pawn(final Alliance pieceAlliance,
                 final int piecePosition,
                 final boolean isFirstMove) {
@@ -26,96 +27,57 @@ public class Pawn extends Piece{
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final int currentCandidateOffset : CANDIDATE_MOVE_COORDINATE)
+        final ImmutableList.Builder<Move> legalMoves = ImmutableList.builder();
+        final int candidateDestinationCoordinate = this.piecePosition + this.pieceAlliance.getDirection() * NUM_TILES_PER_ROW;
+        if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate) && !board.isTileOccupied(candidateDestinationCoordinate))
         {
-            final int candidateDestinationCoordinate = this.piecePosition +(this.pieceAlliance.getDirection()*currentCandidateOffset);
-            if(!BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) continue;
-            if(currentCandidateOffset==8 && !board.getTile(candidateDestinationCoordinate).isTileOccupied())
+            if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate))
+            {
+                legalMoves.add(new Move.PawnPromotion(new Move.PawnMove(board, this, candidateDestinationCoordinate)));
+            }else
             {
-                if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate))
-                {
-                    legalMoves.add(new Move.PawnPromotion(new Move.PawnMove(board, this,candidateDestinationCoordinate)));
-                }else
-                {
-                    legalMoves.add(new Move.PawnMove(board, this, candidateDestinationCoordinate));
-                }
-            }else if(currentCandidateOffset==16 && this.isFirstMove() &&
-                    ((BoardUtils.SEVENTH_RANK[this.piecePosition] && this.pieceAlliance.isBlack())
-                    ||(BoardUtils.SECOND_RANK[this.piecePosition] && this.pieceAlliance.isWhite()))) {
-                final int behindCandidateDestinationCoordinate = this.piecePosition+(this.pieceAlliance.getDirection()*8);
-                if(!board.getTile(behindCandidateDestinationCoordinate).isTileOccupied()&&
-                    !board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                    legalMoves.add(new Move.PawnJump(board,this,candidateDestinationCoordinate));
-                }
+                legalMoves.add(new Move.PawnMove(board, this, candidateDestinationCoordinate));
             }
-            //Attack candidate
-            else if(currentCandidateOffset==7&&
-                    !((BoardUtils.FIRST_COLUMN[this.piecePosition] && this.pieceAlliance.isBlack())
-                     ||(BoardUtils.EIGHTH_COLUMN[this.piecePosition]&&this.pieceAlliance.isWhite()))) {
-                if(board.getTile(candidateDestinationCoordinate).isTileOccupied())
-                {
-                    final Piece pieceOnCandidate = board.getTile(candidateDestinationCoordinate).getPiece();
-                    if(this.pieceAlliance!= pieceOnCandidate.pieceAlliance)
-                    {
-                        if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate))
-                        {
-                            legalMoves.add(new Move.PawnPromotion(new Move.PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate)));
-                        }else
-                        {
-                            legalMoves.add(new Move.PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
-
-                    }
-                }else if(board.getEnPassantPawn()!=null)
-                {
-                    if(board.getEnPassantPawn().getPiecePosition() == this.piecePosition+(this.pieceAlliance.getOppositeDirection()))
-                    {
-                        final Piece pieceOnCandidate = board.getEnPassantPawn();
-                        if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance())
-                        {
-                            legalMoves.add(new Move.PawnEnPassantAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
-                    }
-                }
-            }else if (currentCandidateOffset == 9 &&
-                    !((BoardUtils.EIGHTH_COLUMN[this.piecePosition]&&this.pieceAlliance.isBlack() ||
-                            (BoardUtils.FIRST_COLUMN[this.piecePosition])&&this.pieceAlliance.isWhite()) )){
-                if(board.getTile(candidateDestinationCoordinate).isTileOccupied())
-                {
-                    final Piece pieceOnCandidate = board.getTile(candidateDestinationCoordinate).getPiece();
-                    if(this.pieceAlliance!= pieceOnCandidate.pieceAlliance)
-                    {
-                        //TODO more to do here
-                        if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate))
-                        {
-                            legalMoves.add(new Move.PawnPromotion(new Move.PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate)));
-                        }else
-                        {
-                            legalMoves.add(new Move.PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
-
-                    }
-                }
-                else if(board.getEnPassantPawn()!=null)
-                {
-                    if(board.getEnPassantPawn().getPiecePosition() == this.piecePosition-(this.pieceAlliance.getOppositeDirection()))
-                    {
-                        final Piece pieceOnCandidate = board.getEnPassantPawn();
-                        if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance())
-                        {
-                            legalMoves.add(new Move.PawnEnPassantAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
-                    }
-                }
+            final int jumpDestinationCoordinate = candidateDestinationCoordinate + this.pieceAlliance.getDirection() * NUM_TILES_PER_ROW;
+            if(this.isFirstMove() &&
+               ((BoardUtils.SEVENTH_RANK[this.piecePosition] && this.pieceAlliance.isBlack())
+               ||(BoardUtils.SECOND_RANK[this.piecePosition] && this.pieceAlliance.isWhite()))
+               && !board.isTileOccupied(jumpDestinationCoordinate)) {
+                legalMoves.add(new Move.PawnJump(board, this, jumpDestinationCoordinate));
+            }
+        }
+        //Attack candidates
+        final long attacks = LeaperAttacks.pawnAttacks(this.pieceAlliance, this.piecePosition);
+        long captures = attacks & board.getBitBoard().getOccupancy() & ~board.getBitBoard().getOccupancy(this.pieceAlliance);
+        while(captures != 0)
+        {
+            final int attackDestinationCoordinate = Long.numberOfTrailingZeros(captures);
+            final Piece pieceOnCandidate = board.getPiece(attackDestinationCoordinate);
+            if(this.pieceAlliance.isPawnPromotionSquare(attackDestinationCoordinate))
+            {
+                legalMoves.add(new Move.PawnPromotion(new Move.PawnAttackMove(board, this, attackDestinationCoordinate, pieceOnCandidate)));
+            }else
+            {
+                legalMoves.add(new Move.PawnAttackMove(board, this, attackDestinationCoordinate, pieceOnCandidate));
+            }
+            captures &= captures - 1;
+        }
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if(enPassantPawn != null && enPassantPawn.getPieceAlliance() != this.pieceAlliance)
+        {
+            final int enPassantDestinationCoordinate = enPassantPawn.getPiecePosition() + this.pieceAlliance.getDirection() * NUM_TILES_PER_ROW;
+            if((attacks & BitBoard.squareMask(enPassantDestinationCoordinate)) != 0 &&
+               !board.isTileOccupied(enPassantDestinationCoordinate))
+            {
+                legalMoves.add(new Move.PawnEnPassantAttackMove(board, this, enPassantDestinationCoordinate, enPassantPawn));
             }
         }
-        return ImmutableList.copyOf(legalMoves);
+        return legalMoves.build();
     }
 
     @Override
     public Piece movePiece(Move move) {
-        return new Pawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return PieceUtils.getPawn(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     @Override
@@ -124,7 +86,7 @@ public class Pawn extends Piece{
     }
 
     public Piece getPromotionPiece() {
-        return new Queen(this.pieceAlliance,this.piecePosition, false);
+        return PieceUtils.getQueen(this.pieceAlliance, this.piecePosition, false);
     }
 
     @NonNull
@@ -2,6 +2,7 @@ package com.peterwayne.peterchess.engine.pieces;
 
 import androidx.annotation.NonNull;
 
+import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
 import com.peterwayne.peterchess.engine.board.Board;
 import com.peterwayne.peterchess.engine.board.Move;
@@ -45,6 +46,23 @@ public abstract class Piece {
     }
     public abstract Collection<Move> calculateLegalMoves(final Board board);
     public abstract Piece movePiece(final Move move);
+
+    //turns an attack set into moves, dropping the tiles held by our own pieces
+    protected Collection<Move> calculateMovesFromAttacks(final Board board, final long attacks) {
+        long destinations = attacks & ~board.getBitBoard().getOccupancy(this.pieceAlliance);
+        final ImmutableList.Builder<Move> legalMoves = ImmutableList.builderWithExpectedSize(Long.bitCount(destinations));
+        while(destinations != 0) {
+            final int candidateDestinationCoordinate = Long.numberOfTrailingZeros(destinations);
+            final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
+            if(pieceAtDestination == null) {
+                legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
+            } else {
+                legalMoves.add(new Move.MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
+            }
+            destinations &= destinations - 1;
+        }
+        return legalMoves.build();
+    }
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,139 @@
+package com.peterwayne.peterchess.engine.pieces;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.NUM_TILES;
+
+import com.peterwayne.peterchess.engine.Alliance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Pieces are immutable, so every (type, alliance, tile, flags) combination is built once here
+//and shared by all boards instead of being allocated on each move
+public enum PieceUtils {
+    INSTANCE;
+    private static final Alliance[] ALLIANCES = Alliance.values();
+    private static final Pawn[][][] ALL_PAWNS = createAllPawns();
+    private static final Knight[][][] ALL_KNIGHTS = createAllKnights();
+    private static final Bishop[][][] ALL_BISHOPS = createAllBishops();
+    private static final Rook[][][] ALL_ROOKS = createAllRooks();
+    private static final Queen[][][] ALL_QUEENS = createAllQueens();
+    private static final King[][][] ALL_KINGS = createAllKings();
+
+    public static Pawn getPawn(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return ALL_PAWNS[alliance.ordinal()][position][isFirstMove ? 1 : 0];
+    }
+
+    public static Knight getKnight(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return ALL_KNIGHTS[alliance.ordinal()][position][isFirstMove ? 1 : 0];
+    }
+
+    public static Bishop getBishop(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return ALL_BISHOPS[alliance.ordinal()][position][isFirstMove ? 1 : 0];
+    }
+
+    public static Rook getRook(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return ALL_ROOKS[alliance.ordinal()][position][isFirstMove ? 1 : 0];
+    }
+
+    public static Queen getQueen(final Alliance alliance, final int position, final boolean isFirstMove) {
+        return ALL_QUEENS[alliance.ordinal()][position][isFirstMove ? 1 : 0];
+    }
+
+    public static King getKing(final Alliance alliance,
+                               final int position,
+                               final boolean isFirstMove,
+                               final boolean isCastled,
+                               final boolean kingSideCastleCapable,
+                               final boolean queenSideCastleCapable) {
+        return ALL_KINGS[alliance.ordinal()][position][kingFlags(isFirstMove, isCastled, kingSideCastleCapable, queenSideCastleCapable)];
+    }
+
+    //every flyweight, for caches keyed by piece
+    public static List<Piece> allPieces() {
+        final List<Piece> pieces = new ArrayList<>();
+        for(final Piece[][][] piecesOfType : new Piece[][][][]{ALL_PAWNS, ALL_KNIGHTS, ALL_BISHOPS, ALL_ROOKS, ALL_QUEENS, ALL_KINGS}) {
+            for(final Piece[][] piecesOfAlliance : piecesOfType) {
+                for(final Piece[] piecesOnTile : piecesOfAlliance) {
+                    pieces.addAll(Arrays.asList(piecesOnTile));
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private static int kingFlags(final boolean isFirstMove,
+                                 final boolean isCastled,
+                                 final boolean kingSideCastleCapable,
+                                 final boolean queenSideCastleCapable) {
+        return (isFirstMove ? 1 : 0) | (isCastled ? 2 : 0) | (kingSideCastleCapable ? 4 : 0) | (queenSideCastleCapable ? 8 : 0);
+    }
+
+    private static Pawn[][][] createAllPawns() {
+        final Pawn[][][] pieces = new Pawn[ALLIANCES.length][NUM_TILES][2];
+        for(final Alliance alliance : ALLIANCES) {
+            for(int i = 0; i < NUM_TILES; i++) {
+                pieces[alliance.ordinal()][i][0] = new Pawn(alliance, i, false);
+                pieces[alliance.ordinal()][i][1] = new Pawn(alliance, i, true);
+            }
+        }
+        return pieces;
+    }
+
+    private static Knight[][][] createAllKnights() {
+        final Knight[][][] pieces = new Knight[ALLIANCES.length][NUM_TILES][2];
+        for(final Alliance alliance : ALLIANCES) {
+            for(int i = 0; i < NUM_TILES; i++) {
+                pieces[alliance.ordinal()][i][0] = new Knight(alliance, i, false);
+                pieces[alliance.ordinal()][i][1] = new Knight(alliance, i, true);
+            }
+        }
+        return pieces;
+    }
+
+    private static Bishop[][][] createAllBishops() {
+        final Bishop[][][] pieces = new Bishop[ALLIANCES.length][NUM_TILES][2];
+        for(final Alliance alliance : ALLIANCES) {
+            for(int i = 0; i < NUM_TILES; i++) {
+                pieces[alliance.ordinal()][i][0] = new Bishop(alliance, i, false);
+                pieces[alliance.ordinal()][i][1] = new Bishop(alliance, i, true);
+            }
+        }
+        return pieces;
+    }
+
+    private static Rook[][][] createAllRooks() {
+        final Rook[][][] pieces = new Rook[ALLIANCES.length][NUM_TILES][2];
+        for(final Alliance alliance : ALLIANCES) {
+            for(int i = 0; i < NUM_TILES; i++) {
+                pieces[alliance.ordinal()][i][0] = new Rook(alliance, i, false);
+                pieces[alliance.ordinal()][i][1] = new Rook(alliance, i, true);
+            }
+        }
+        return pieces;
+    }
+
+    private static Queen[][][] createAllQueens() {
+        final Queen[][][] pieces = new Queen[ALLIANCES.length][NUM_TILES][2];
+        for(final Alliance alliance : ALLIANCES) {
+            for(int i = 0; i < NUM_TILES; i++) {
+                pieces[alliance.ordinal()][i][0] = new Queen(alliance, i, false);
+                pieces[alliance.ordinal()][i][1] = new Queen(alliance, i, true);
+            }
+        }
+        return pieces;
+    }
+
+    private static King[][][] createAllKings() {
+        final King[][][] pieces = new King[ALLIANCES.length][NUM_TILES][16];
+        for(final Alliance alliance : ALLIANCES) {
+            for(int i = 0; i < NUM_TILES; i++) {
+                for(int flags = 0; flags < 16; flags++) {
+                    pieces[alliance.ordinal()][i][flags] = new King(alliance, i,
+                            (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, (flags & 8) != 0);
+                }
+            }
+        }
+        return pieces;
+    }
+}
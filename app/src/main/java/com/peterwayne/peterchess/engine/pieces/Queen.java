@@ -2,20 +2,14 @@ package com.peterwayne.peterchess.engine.pieces;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
 import com.peterwayne.peterchess.engine.board.Board;
-import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.MagicBitBoards;
 import com.peterwayne.peterchess.engine.board.Move;
-import com.peterwayne.peterchess.engine.board.Tile;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 public class Queen extends Piece{
-    private static final int[] CANDIDATE_MOVE_VECTOR_COORDINATE = {-9, -8, -7,-1, 1, 7, 8, 9 };
-
     public Queen(final Alliance pieceAlliance,
                  final int piecePosition,
                  final boolean isFirstMove) {
@@ -29,46 +23,13 @@ public class Queen extends Piece{
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for (final int candidateCoordinateOffset : CANDIDATE_MOVE_VECTOR_COORDINATE) {
-            int candidateDestinationCoordinate = this.piecePosition;
-            while (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                if (isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)
-                        || isEighthColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)) {
-                    break;
-                }
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-                if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                    if (!candidateDestinationTile.isTileOccupied()) {
-                        legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                    } else {
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-                        if (this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(
-                                    new Move.MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
-                        break;
-                    }
-
-                }
-            }
-        }
-        return ImmutableList.copyOf(legalMoves);
-    }
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.FIRST_COLUMN[currentPosition] &&
-                (candidateOffset == -9 || candidateOffset == 7|| candidateOffset==-1);
+        return calculateMovesFromAttacks(board,
+                MagicBitBoards.queenAttacks(this.piecePosition, board.getBitBoard().getOccupancy()));
     }
 
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset) {
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] &&
-                (candidateOffset == -7 || candidateOffset == 9||candidateOffset==1);
-    }
     @Override
     public Queen movePiece(final Move move) {
-        return new Queen(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return PieceUtils.getQueen(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     @Override
@@ -2,19 +2,14 @@ package com.peterwayne.peterchess.engine.pieces;
 
 import androidx.annotation.NonNull;
 
-import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
 import com.peterwayne.peterchess.engine.board.Board;
-import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.MagicBitBoards;
 import com.peterwayne.peterchess.engine.board.Move;
-import com.peterwayne.peterchess.engine.board.Tile;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 public class Rook extends Piece{
-    private static final int[] CANDIDATE_MOVE_VECTOR_COORDINATES = {-8,-1,1,8};
     public Rook(
             final Alliance pieceAlliance,
             final int piecePosition,
@@ -27,48 +22,14 @@ public class Rook extends Piece{
     }
 
     @Override
-    public Collection<Move> calculateLegalMoves(Board board) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final int candidateCoordinateOffset : CANDIDATE_MOVE_VECTOR_COORDINATES)
-        {
-            int candidateDestinationCoordinate = this.piecePosition;
-            while(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate))
-            {
-                if(isFirstColumnExclusion(candidateDestinationCoordinate,candidateCoordinateOffset)
-                || isEighthColumnExclusion(candidateDestinationCoordinate,candidateCoordinateOffset))
-                {
-                    break;
-                }
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-                if (BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)) {
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                    if (!candidateDestinationTile.isTileOccupied()) {
-                        legalMoves.add(new Move.MajorMove(board, this, candidateDestinationCoordinate));
-                    } else {
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-                        if (this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(
-                                    new Move.MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-        return ImmutableList.copyOf(legalMoves);
-    }
-
-    private static boolean isFirstColumnExclusion(final int candidateDestinationCoordinate,final int candidateCoordinateOffset) {
-        return BoardUtils.FIRST_COLUMN[candidateDestinationCoordinate]&&candidateCoordinateOffset==-1;
-    }
-    private static boolean isEighthColumnExclusion(final int candidateDestinationCoordinate,final int candidateCoordinateOffset) {
-        return BoardUtils.EIGHTH_COLUMN[candidateDestinationCoordinate]&&candidateCoordinateOffset==1;
+    public Collection<Move> calculateLegalMoves(final Board board) {
+        return calculateMovesFromAttacks(board,
+                MagicBitBoards.rookAttacks(this.piecePosition, board.getBitBoard().getOccupancy()));
     }
 
     @Override
     public Rook movePiece(final Move move) {
-        return new Rook(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate());
+        return PieceUtils.getRook(move.getMovedPiece().getPieceAlliance(), move.getDestinationCoordinate(), false);
     }
 
     @Override
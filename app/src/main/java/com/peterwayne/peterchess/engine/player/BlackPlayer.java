@@ -16,16 +16,13 @@ import java.util.Collections;
 import java.util.List;
 
 public final class BlackPlayer extends Player{
-    public BlackPlayer(final Board board,
-                       final Collection<Move> whiteStandardLegals,
-                       final Collection<Move> blackStandardLegals) {
-        super(board, blackStandardLegals, whiteStandardLegals);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
 
 
     @Override
-    public Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                 final Collection<Move> opponentLegals) {
+    public Collection<Move> calculateKingCastles() {
         if(!hasCastleOpportunities())
         {
             return Collections.emptyList();
@@ -38,9 +35,10 @@ public final class BlackPlayer extends Player{
             {
                 final Piece kingSideRook = this.board.getPiece(7);
                 if(kingSideRook!=null && kingSideRook.isFirstMove()
-                    && Player.calculateAttacksOnTile(5,opponentLegals).isEmpty()
-                    && Player.calculateAttacksOnTile(6, opponentLegals).isEmpty()
-                    && kingSideRook.getPieceType() == Piece.PieceType.ROOK) {
+                    && !this.board.isSquareAttacked(5, Alliance.WHITE)
+                    && !this.board.isSquareAttacked(6, Alliance.WHITE)
+                    && kingSideRook.getPieceType() == Piece.PieceType.ROOK
+                    && kingSideRook.getPieceAlliance() == getAlliance()) {
                     if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing,12)) {
                         kingCastles.add(
                                 new Move.KingSideCastleMove(this.board, this.playerKing, 6,
@@ -55,9 +53,10 @@ public final class BlackPlayer extends Player{
             {
                 final Piece queenSideRook = this.board.getPiece(0);
                 if(queenSideRook != null && queenSideRook.isFirstMove() &&
-                Player.calculateAttacksOnTile(2,opponentLegals).isEmpty() &&
-                Player.calculateAttacksOnTile(3, opponentLegals).isEmpty() &&
-                queenSideRook.getPieceType() == Piece.PieceType.ROOK)
+                !this.board.isSquareAttacked(2, Alliance.WHITE) &&
+                !this.board.isSquareAttacked(3, Alliance.WHITE) &&
+                queenSideRook.getPieceType() == Piece.PieceType.ROOK &&
+                queenSideRook.getPieceAlliance() == getAlliance())
                 {
                     if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12))
                     {
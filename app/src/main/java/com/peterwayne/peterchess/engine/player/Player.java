@@ -1,63 +1,58 @@
 package com.peterwayne.peterchess.engine.player;
 
-import static java.util.stream.Collectors.collectingAndThen;
-
+import com.google.common.collect.ImmutableList;
 import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.board.BitBoard;
 import com.peterwayne.peterchess.engine.board.Board;
+import com.peterwayne.peterchess.engine.board.GameState;
 import com.peterwayne.peterchess.engine.board.Move;
 import com.peterwayne.peterchess.engine.board.Move.MoveStatus;
 import com.peterwayne.peterchess.engine.board.MoveTransition;
 import com.peterwayne.peterchess.engine.pieces.King;
 import com.peterwayne.peterchess.engine.pieces.Piece;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.stream.Collectors;
 
 public abstract class Player {
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    private final boolean isInCheck;
-    public Player(final Board board,
-                  final Collection<Move> playerLegals,
-                  final Collection<Move> opponentLegals) {
+    //computed on first access, most boards built during a search never need them
+    private Collection<Move> legalMoves;
+    private Collection<Move> strictlyLegalMoves;
+    private Boolean isInCheck;
+    private GameState gameState;
+    public Player(final Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        this.isInCheck = !Player.calculateAttacksOnTile(this.playerKing.getPiecePosition(),opponentLegals).isEmpty();
-        playerLegals.addAll(calculateKingCastles(playerLegals,opponentLegals));
-        this.legalMoves = Collections.unmodifiableCollection(playerLegals);
-
     }
 
-    public static Collection<Move> calculateAttacksOnTile(final int piecePosition, final Collection<Move> moves) {
-//        final List<Move> attackMoves = new ArrayList<>();
-//        for(final Move move : moves)
-//        {
-//            if(piecePosition == move.getDestinationCoordinate())
-//            {
-//                attackMoves.add(move);
-//            }
-//        }
-//        return ImmutableList.copyOf(attackMoves);
-        return moves.stream()
-                .filter(move->move.getDestinationCoordinate()==piecePosition)
-                .collect(collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
-    }
     public boolean isMoveLegal(final Move move)
     {
-        return this.legalMoves.contains(move);
+        return getLegalMoves().contains(move);
     }
     public boolean isInCheck()
     {
+        if(this.isInCheck == null)
+        {
+            this.isInCheck = this.board.isSquareAttacked(this.playerKing.getPiecePosition(), getAlliance().getOpposite());
+        }
         return this.isInCheck;
     }
     public boolean isInCheckMate()
     {
-        return this.isInCheck && !hasEscapeMove();
+        return getGameState() == GameState.CHECKMATE;
     }
     public boolean isInStaleMate()
     {
-        return !this.isInCheck && !hasEscapeMove();
+        return getGameState() == GameState.STALEMATE;
+    }
+    //decided once per board from the strictly legal move count, checkmate and stalemate share it
+    public GameState getGameState()
+    {
+        if(this.gameState == null)
+        {
+            this.gameState = GameState.of(!getStrictlyLegalMoves().isEmpty(), isInCheck());
+        }
+        return this.gameState;
     }
     private King establishKing(){
 //        for(final Piece piece : getActivePieces())
@@ -68,27 +63,17 @@ public abstract class Player {
 //            }
 //        }
 //        throw new RuntimeException("Invalid board!");
-        return (King) getActivePieces().stream()
-                .filter(piece -> piece.getPieceType()== Piece.PieceType.KING)
-                .findAny()
-                .orElseThrow(RuntimeException::new);
+        final long king = this.board.getBitBoard().getPieces(getAlliance(), Piece.PieceType.KING);
+        if(king == 0)
+        {
+            throw new RuntimeException();
+        }
+        return (King) this.board.getPiece(Long.numberOfTrailingZeros(king));
     }
 
-    private boolean hasEscapeMove() {
-//        for(final Move move : this.legalMoves)
-//        {
-//            final MoveTransition transition = makeMove(move);
-//            if(transition.getMoveStatus().isDone())
-//            {
-//                return true;
-//            }
-//        }
-//        return false;
-        return this.legalMoves.stream().anyMatch(move -> makeMove(move).getMoveStatus().isDone());
-    }
     protected boolean hasCastleOpportunities()
     {
-        return !this.isInCheck && !this.isCastled() &&
+        return !isInCheck() && !this.isCastled() &&
                 (this.playerKing.isKingSideCastleCapable() || this.playerKing.isQueenSideCastleCapable());
     }
     public boolean isCastled()
@@ -105,10 +90,11 @@ public abstract class Player {
         {
             return new MoveTransition(this.board,this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        final Board transitionedBoard = move.execute();
-        return transitionedBoard.getCurrentPlayer().getOpponent().isInCheck() ?
-                new MoveTransition(this.board,this.board,move, MoveStatus.LEAVE_PLAYER_IN_CHECK) :
-                new MoveTransition(this.board, transitionedBoard, move, MoveStatus.DONE);
+        if(!getStrictlyLegalMoves().contains(move))
+        {
+            return new MoveTransition(this.board,this.board,move, MoveStatus.LEAVE_PLAYER_IN_CHECK);
+        }
+        return new MoveTransition(this.board, move.execute(), move, MoveStatus.DONE);
     }
 
 
@@ -120,7 +106,34 @@ public abstract class Player {
 
     public Collection<Move> getLegalMoves()
     {
-        return legalMoves;
+        if(this.legalMoves == null)
+        {
+            this.legalMoves = ImmutableList.<Move>builder()
+                    .addAll(this.board.getStandardMoves(getAlliance()))
+                    .addAll(calculateKingCastles())
+                    .build();
+        }
+        return this.legalMoves;
+    }
+    //the legal moves that do not leave the king in check, filtered with the pins and checkers of
+    //this position instead of executing every move
+    public Collection<Move> getStrictlyLegalMoves()
+    {
+        if(this.strictlyLegalMoves == null)
+        {
+            final BitBoard bitBoard = this.board.getBitBoard();
+            final long pinned = bitBoard.getPinnedPieces(getAlliance());
+            final long checkers = bitBoard.getCheckers(getAlliance());
+            this.strictlyLegalMoves = getLegalMoves().stream()
+                    .filter(move -> bitBoard.isLegalMove(getAlliance(),
+                            move.getCurrentCoordinate(),
+                            move.getDestinationCoordinate(),
+                            move.isAttack() ? move.getAttackedPiece().getPiecePosition() : move.getDestinationCoordinate(),
+                            pinned,
+                            checkers))
+                    .collect(ImmutableList.toImmutableList());
+        }
+        return this.strictlyLegalMoves;
     }
-    public abstract Collection<Move> calculateKingCastles(Collection<Move> legalMoves, Collection<Move> opponentMoves);
+    public abstract Collection<Move> calculateKingCastles();
 }
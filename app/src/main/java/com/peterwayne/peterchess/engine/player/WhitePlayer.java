@@ -17,14 +17,11 @@ import java.util.Collections;
 import java.util.List;
 
 public final class WhitePlayer extends Player{
-    public WhitePlayer(final Board board,
-                       final Collection<Move> whiteStandardLegals,
-                       final Collection<Move> blackStandardLegals) {
-        super(board, whiteStandardLegals, blackStandardLegals);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
     @Override
-    public Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                 final Collection<Move> opponentLegals) {
+    public Collection<Move> calculateKingCastles() {
         if(!hasCastleOpportunities()) {
             return Collections.emptyList();
         }
@@ -36,9 +33,9 @@ public final class WhitePlayer extends Player{
             if(this.board.getPiece(61) == null && this.board.getPiece(62) == null) {
                 final Piece kingSideRook = this.board.getPiece(63);
                 if(kingSideRook != null && kingSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(61, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(62, opponentLegals).isEmpty() &&
-                            kingSideRook.getPieceType() == ROOK) {
+                    if(!this.board.isSquareAttacked(61, Alliance.BLACK) &&
+                            !this.board.isSquareAttacked(62, Alliance.BLACK) &&
+                            kingSideRook.getPieceType() == ROOK && kingSideRook.getPieceAlliance() == getAlliance()) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new Move.KingSideCastleMove(this.board, this.playerKing, 62, (Rook) kingSideRook, kingSideRook.getPiecePosition(), 61));
                         }
@@ -51,9 +48,9 @@ public final class WhitePlayer extends Player{
                     this.board.getPiece(57) == null) {
                 final Piece queenSideRook = this.board.getPiece(56);
                 if(queenSideRook != null && queenSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(58, opponentLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(59, opponentLegals).isEmpty()
-                            && queenSideRook.getPieceType() == ROOK) {
+                    if(!this.board.isSquareAttacked(58, Alliance.BLACK) &&
+                            !this.board.isSquareAttacked(59, Alliance.BLACK)
+                            && queenSideRook.getPieceType() == ROOK && queenSideRook.getPieceAlliance() == getAlliance()) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new Move.QueenSideCastleMove(this.board, this.playerKing, 58,
                                     (Rook) queenSideRook, queenSideRook.getPiecePosition(), 59));
@@ -1,7 +1,9 @@
 package com.peterwayne.peterchess.engine.player.ai;
 
 import com.peterwayne.peterchess.engine.board.Board;
+import com.peterwayne.peterchess.engine.board.SearchBoard;
 
 public interface BoardEvaluator {
     int evaluate(Board board, int depth);
+    int evaluate(SearchBoard board, int depth);
 }
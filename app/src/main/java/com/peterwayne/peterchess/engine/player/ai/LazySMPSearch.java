@@ -0,0 +1,96 @@
+package com.peterwayne.peterchess.engine.player.ai;
+
+import com.peterwayne.peterchess.engine.board.Board;
+import com.peterwayne.peterchess.engine.board.Move;
+import com.peterwayne.peterchess.engine.board.SearchBoard;
+
+import java.util.List;
+
+//Lazy SMP: helper threads run their own StockAlphaBeta on the same position and share the
+//transposition table with the main search, whose move is the one played. The helpers mostly
+//fill the table, so the main search finds more cutoffs and hash moves at each depth; only the
+//main search logs and notifies its observers.
+public final class LazySMPSearch implements MoveStrategy {
+    private final StockAlphaBeta mainSearch;
+    private final StockAlphaBeta[] helperSearches;
+    private final TranspositionTable transpositionTable;
+
+    public LazySMPSearch(final int maxDepth,
+                         final long softTimeLimitMillis,
+                         final long hardTimeLimitMillis,
+                         final int helperThreads,
+                         final TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        this.mainSearch = new StockAlphaBeta(maxDepth, softTimeLimitMillis, hardTimeLimitMillis, transpositionTable);
+        this.helperSearches = new StockAlphaBeta[helperThreads];
+        for(int i = 0; i < helperThreads; i++) {
+            //helpers keep deepening until the main search is done with the move
+            final long helperTimeLimitMillis = Math.max(softTimeLimitMillis, hardTimeLimitMillis);
+            this.helperSearches[i] = new StockAlphaBeta(maxDepth, helperTimeLimitMillis, helperTimeLimitMillis, transpositionTable);
+            this.helperSearches[i].setHelperId(i + 1);
+        }
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        //before any helper starts, so all stores of this search carry its age and Thread.start publishes it
+        this.transpositionTable.newSearch();
+        final Thread[] helperThreads = new Thread[this.helperSearches.length];
+        for(int i = 0; i < helperThreads.length; i++) {
+            final StockAlphaBeta helperSearch = this.helperSearches[i];
+            //each helper gets its own copy of the position, made here so the Board is only read by this thread
+            final SearchBoard helperBoard = new SearchBoard(board);
+            helperThreads[i] = new Thread(() -> helperSearch.searchAsHelper(helperBoard), "LazySMP helper " + (i + 1));
+            helperThreads[i].start();
+        }
+        try {
+            return this.mainSearch.searchAsMain(board);
+        } finally {
+            stopHelpers(helperThreads);
+        }
+    }
+
+    //a helper that had not started yet when stop was first called resets its flag, so keep asking until it is gone
+    private void stopHelpers(final Thread[] helperThreads) {
+        boolean interrupted = false;
+        for(int i = 0; i < helperThreads.length; i++) {
+            while(helperThreads[i].isAlive()) {
+                this.helperSearches[i].stop();
+                try {
+                    helperThreads[i].join(10);
+                } catch(final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void stop() {
+        this.mainSearch.stop();
+    }
+
+    public Move getBestMove() {
+        return this.mainSearch.getBestMove();
+    }
+
+    public List<Move> getPrincipalVariation() {
+        return this.mainSearch.getPrincipalVariation();
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        long boardsEvaluated = this.mainSearch.getNumBoardsEvaluated();
+        for(final StockAlphaBeta helperSearch : this.helperSearches) {
+            boardsEvaluated += helperSearch.getNumBoardsEvaluated();
+        }
+        return boardsEvaluated;
+    }
+
+    @Override
+    public String toString() {
+        return "LazySMPSearch";
+    }
+}
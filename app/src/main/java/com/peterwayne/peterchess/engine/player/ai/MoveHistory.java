@@ -0,0 +1,79 @@
+package com.peterwayne.peterchess.engine.player.ai;
+
+import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.board.SearchBoard;
+
+//What the search has learned about quiet moves, used to order them: two killer moves per ply,
+//a butterfly history of cutoffs by [side to move][from][to] and, for every previous move by its
+//[from][to], the countermove that last refuted it. Only quiet moves that cause a cutoff are recorded.
+final class MoveHistory {
+    //history scores are halved once one of them reaches this, so recent cutoffs keep their weight
+    private static final int MAX_HISTORY = 1 << 20;
+    private final int[][] killerMoves = new int[SearchBoard.MAX_PLY][2];
+    private final int[][][] history = new int[Alliance.values().length][64][64];
+    private final int[][] counterMoves = new int[64][64];
+
+    int firstKiller(final int ply) {
+        return this.killerMoves[ply][0];
+    }
+
+    int secondKiller(final int ply) {
+        return this.killerMoves[ply][1];
+    }
+
+    boolean isKiller(final int ply, final int move) {
+        return move == this.killerMoves[ply][0] || move == this.killerMoves[ply][1];
+    }
+
+    int historyScore(final Alliance sideToMove, final int move) {
+        return this.history[sideToMove.ordinal()][SearchBoard.fromSquare(move)][SearchBoard.toSquare(move)];
+    }
+
+    //the quiet move that last refuted the move leading to this position, NO_MOVE when there is none
+    int counterMove(final SearchBoard board) {
+        final int previousMove = board.getLastMove(0);
+        return previousMove != SearchBoard.NO_MOVE ?
+                this.counterMoves[SearchBoard.fromSquare(previousMove)][SearchBoard.toSquare(previousMove)] :
+                SearchBoard.NO_MOVE;
+    }
+
+    //called with the board at the node where move caused a beta cutoff
+    void update(final SearchBoard board, final int move, final int depth) {
+        if(SearchBoard.isCapture(move) || SearchBoard.isPromotion(move)) {
+            return;
+        }
+        final int ply = board.getPly();
+        if(this.killerMoves[ply][0] != move) {
+            this.killerMoves[ply][1] = this.killerMoves[ply][0];
+            this.killerMoves[ply][0] = move;
+        }
+        final int[] fromHistory = this.history[board.getSideToMove().ordinal()][SearchBoard.fromSquare(move)];
+        fromHistory[SearchBoard.toSquare(move)] += depth * depth;
+        if(fromHistory[SearchBoard.toSquare(move)] >= MAX_HISTORY) {
+            age();
+        }
+        final int previousMove = board.getLastMove(0);
+        if(previousMove != SearchBoard.NO_MOVE) {
+            this.counterMoves[SearchBoard.fromSquare(previousMove)][SearchBoard.toSquare(previousMove)] = move;
+        }
+    }
+
+    //between searches: the killers belong to the plies of the last search, the history only fades
+    void newSearch() {
+        for(final int[] killers : this.killerMoves) {
+            killers[0] = SearchBoard.NO_MOVE;
+            killers[1] = SearchBoard.NO_MOVE;
+        }
+        age();
+    }
+
+    private void age() {
+        for(final int[][] sideHistory : this.history) {
+            for(final int[] fromHistory : sideHistory) {
+                for(int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.peterwayne.peterchess.engine.player.ai;
+
+import static com.peterwayne.peterchess.engine.board.BoardUtils.mvvlva;
+
+import com.peterwayne.peterchess.engine.board.BitBoard;
+import com.peterwayne.peterchess.engine.board.SearchBoard;
+
+//Hands out the moves of one search node in stages: the hash move, then captures and promotions
+//that do not lose material by static exchange evaluation, best MVV-LVA first, then the killer moves
+//and the countermove, then the quiet moves best history score first, and the losing captures last.
+//A stage is only generated once the previous ones are used up, so a node that cuts off early never
+//generates its quiets. The quiescence search only takes the winning and even captures.
+final class MovePicker {
+    private static final int CASTLE_ORDER_BONUS = 1 << 29;
+    private enum Stage {
+        HASH_MOVE,
+        GENERATE_CAPTURES,
+        CAPTURES,
+        FIRST_KILLER,
+        SECOND_KILLER,
+        COUNTER_MOVE,
+        GENERATE_QUIETS,
+        QUIETS,
+        BAD_CAPTURES,
+        DONE
+    }
+    private final int[] moves = new int[SearchBoard.MAX_MOVES];
+    private final int[] scores = new int[SearchBoard.MAX_MOVES];
+    //captures losing material, kept back from the captures stage in generated order
+    private final int[] badCaptures = new int[SearchBoard.MAX_MOVES];
+    private int numBadCaptures;
+    private SearchBoard board;
+    private MoveHistory history;
+    private Stage stage;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private int numMoves;
+    private int index;
+    //quiescence search: only the captures and promotions are handed out
+    private boolean capturesOnly;
+
+    void init(final SearchBoard board,
+              final int hashMove,
+              final MoveHistory history) {
+        final int ply = board.getPly();
+        this.board = board;
+        this.history = history;
+        this.stage = Stage.HASH_MOVE;
+        this.hashMove = hashMove;
+        this.firstKiller = history.firstKiller(ply);
+        this.secondKiller = history.secondKiller(ply);
+        this.counterMove = history.counterMove(board);
+        this.numMoves = 0;
+        this.numBadCaptures = 0;
+        this.index = 0;
+        this.capturesOnly = false;
+    }
+
+    void initCaptures(final SearchBoard board, final MoveHistory history) {
+        init(board, SearchBoard.NO_MOVE, history);
+        this.capturesOnly = true;
+    }
+
+    //the next move to search, SearchBoard.NO_MOVE once every legal move has been handed out
+    int nextMove() {
+        while(true) {
+            switch(this.stage) {
+                case HASH_MOVE:
+                    this.stage = Stage.GENERATE_CAPTURES;
+                    if(this.board.isLegalMove(this.hashMove)) {
+                        return this.hashMove;
+                    }
+                    break;
+                case GENERATE_CAPTURES:
+                    final int numCaptures = this.board.generateLegalCaptures(this.moves, 0);
+                    this.numMoves = 0;
+                    for(int i = 0; i < numCaptures; i++) {
+                        final int move = this.moves[i];
+                        if(isLosingCapture(move)) {
+                            this.badCaptures[this.numBadCaptures++] = move;
+                        } else {
+                            this.moves[this.numMoves] = move;
+                            this.scores[this.numMoves++] = mvvlva(this.board, move);
+                        }
+                    }
+                    this.index = 0;
+                    this.stage = Stage.CAPTURES;
+                    break;
+                case CAPTURES:
+                    if(this.index < this.numMoves) {
+                        final int move = pickBest();
+                        if(move != this.hashMove) {
+                            return move;
+                        }
+                        break;
+                    }
+                    this.stage = this.capturesOnly ? Stage.DONE : Stage.FIRST_KILLER;
+                    break;
+                case FIRST_KILLER:
+                    this.stage = Stage.SECOND_KILLER;
+                    if(isUsableKiller(this.firstKiller)) {
+                        return this.firstKiller;
+                    }
+                    break;
+                case SECOND_KILLER:
+                    this.stage = Stage.COUNTER_MOVE;
+                    if(this.secondKiller != this.firstKiller && isUsableKiller(this.secondKiller)) {
+                        return this.secondKiller;
+                    }
+                    break;
+                case COUNTER_MOVE:
+                    this.stage = Stage.GENERATE_QUIETS;
+                    if(this.counterMove != this.firstKiller && this.counterMove != this.secondKiller &&
+                       isUsableKiller(this.counterMove)) {
+                        return this.counterMove;
+                    }
+                    break;
+                case GENERATE_QUIETS:
+                    this.numMoves = this.board.generateLegalQuiets(this.moves, 0);
+                    for(int i = 0; i < this.numMoves; i++) {
+                        this.scores[i] = (SearchBoard.isCastle(this.moves[i]) ? CASTLE_ORDER_BONUS : 0) +
+                                         this.history.historyScore(this.board.getSideToMove(), this.moves[i]);
+                    }
+                    this.index = 0;
+                    this.stage = Stage.QUIETS;
+                    break;
+                case QUIETS:
+                    if(this.index < this.numMoves) {
+                        final int move = pickBest();
+                        if(move != this.hashMove && move != this.firstKiller &&
+                           move != this.secondKiller && move != this.counterMove) {
+                            return move;
+                        }
+                        break;
+                    }
+                    this.index = 0;
+                    this.stage = Stage.BAD_CAPTURES;
+                    break;
+                case BAD_CAPTURES:
+                    while(this.index < this.numBadCaptures) {
+                        final int move = this.badCaptures[this.index++];
+                        if(move != this.hashMove) {
+                            return move;
+                        }
+                    }
+                    this.stage = Stage.DONE;
+                    break;
+                default:
+                    return SearchBoard.NO_MOVE;
+            }
+        }
+    }
+
+    //a capture of a piece worth at least the capturer cannot lose material, the rest are resolved by SEE
+    private boolean isLosingCapture(final int move) {
+        if(SearchBoard.moveFlag(move) == SearchBoard.EN_PASSANT) {
+            return false;
+        }
+        final BitBoard bitBoard = this.board.getBitBoard();
+        final int movingPieceValue = BitBoard.pieceTypeOf(bitBoard.getPieceCode(SearchBoard.fromSquare(move))).getPieceValue();
+        if(SearchBoard.isCapture(move) &&
+           BitBoard.pieceTypeOf(bitBoard.getPieceCode(SearchBoard.toSquare(move))).getPieceValue() >= movingPieceValue) {
+            return false;
+        }
+        return this.board.see(move) < 0;
+    }
+
+    //killers and countermoves are quiet moves from other nodes, they still have to be legal here
+    private boolean isUsableKiller(final int killer) {
+        return killer != SearchBoard.NO_MOVE && killer != this.hashMove &&
+               !SearchBoard.isCapture(killer) && !SearchBoard.isPromotion(killer) &&
+               this.board.isLegalMove(killer);
+    }
+
+    //selection step: swaps the best remaining move to the front, first generated wins ties
+    private int pickBest() {
+        int best = this.index;
+        for(int i = this.index + 1; i < this.numMoves; i++) {
+            if(this.scores[i] > this.scores[best]) {
+                best = i;
+            }
+        }
+        final int move = this.moves[best];
+        final int score = this.scores[best];
+        System.arraycopy(this.moves, this.index, this.moves, this.index + 1, best - this.index);
+        System.arraycopy(this.scores, this.index, this.scores, this.index + 1, best - this.index);
+        this.moves[this.index] = move;
+        this.scores[this.index] = score;
+        this.index++;
+        return move;
+    }
+}
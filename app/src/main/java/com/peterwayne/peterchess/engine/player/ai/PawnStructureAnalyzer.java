@@ -19,6 +19,11 @@ public final class PawnStructureAnalyzer {
         final int[] pawnOnColumnTable = createPawnColumnTable(calculatePlayerPawns(player));
         return calculatePawnColumnStack(pawnOnColumnTable) + calculateIsolatedPawnPenalty(pawnOnColumnTable);
     }
+    public int pawnStructureScore(final long playerPawns)
+    {
+        final int[] pawnOnColumnTable = createPawnColumnTable(playerPawns);
+        return calculatePawnColumnStack(pawnOnColumnTable) + calculateIsolatedPawnPenalty(pawnOnColumnTable);
+    }
 
     private static int calculateIsolatedPawnPenalty(final int[] pawnsOnColumnTable) {
         int numIsolatedPawns = 0;
@@ -58,6 +63,16 @@ public final class PawnStructureAnalyzer {
         return table;
     }
 
+    private static int[] createPawnColumnTable(long playerPawns) {
+        final int[] table = new int[8];
+        while(playerPawns != 0)
+        {
+            table[Long.numberOfTrailingZeros(playerPawns)%8]++;
+            playerPawns &= playerPawns - 1;
+        }
+        return table;
+    }
+
     private Collection<Piece> calculatePlayerPawns(final Player player) {
         return player.getActivePieces().stream()
                 .filter(piece -> piece.getPieceType() == Piece.PieceType.PAWN)
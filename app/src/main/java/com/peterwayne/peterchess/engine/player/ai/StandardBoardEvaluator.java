@@ -1,7 +1,14 @@
 package com.peterwayne.peterchess.engine.player.ai;
 
+import com.peterwayne.peterchess.engine.Alliance;
+import com.peterwayne.peterchess.engine.board.BitBoard;
 import com.peterwayne.peterchess.engine.board.Board;
+import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.GameState;
+import com.peterwayne.peterchess.engine.board.LeaperAttacks;
+import com.peterwayne.peterchess.engine.board.MagicBitBoards;
 import com.peterwayne.peterchess.engine.board.Move;
+import com.peterwayne.peterchess.engine.board.SearchBoard;
 import com.peterwayne.peterchess.engine.pieces.Piece;
 import com.peterwayne.peterchess.engine.player.Player;
 
@@ -25,6 +32,19 @@ public final class StandardBoardEvaluator implements BoardEvaluator{
     public int evaluate(final Board board,final int depth) {
         return score(board.getWhitePlayer(),depth) - score(board.getBlackPlayer(),depth);
     }
+    @Override
+    public int evaluate(final SearchBoard board, final int depth) {
+        return score(board, Alliance.WHITE, depth) - score(board, Alliance.BLACK, depth);
+    }
+    private static int score(final SearchBoard board,
+                             final Alliance alliance,
+                             final int depth) {
+        return mobility(board, alliance) +
+                kingThreats(board, alliance, depth) +
+                attack(board, alliance) +
+                pieceEvaluation(board, alliance) +
+                pawnStructure(board, alliance);
+    }
     private static int score(final Player player,
                              final int depth) {
         return mobility(player) +
@@ -59,13 +79,15 @@ public final class StandardBoardEvaluator implements BoardEvaluator{
 
     private static int attack(final Player player) {
         int attackScore = 0;
+        final int[] exchangeGains = new int[BoardUtils.MAX_EXCHANGE_LENGTH];
         for(final Move move : player.getLegalMoves())
         {
             if(move.isAttack())
             {
                 final Piece movedPiece = move.getMovedPiece();
                 final Piece attackedPiece = move.getAttackedPiece();
-                if(movedPiece.getPieceValue() <= attackedPiece.getPieceValue())
+                if(movedPiece.getPieceValue() <= attackedPiece.getPieceValue() ||
+                   BoardUtils.see(move.getBoard().getBitBoard(), movedPiece.getPiecePosition(), attackedPiece.getPiecePosition(), exchangeGains) >= 0)
                 {
                     attackScore++;
                 }
@@ -93,4 +115,96 @@ public final class StandardBoardEvaluator implements BoardEvaluator{
     private static int mobilityRatio(final Player player) {
         return (int) ((player.getLegalMoves().size()*10.0f)/player.getOpponent().getLegalMoves().size());
     }
+
+    private static int mobility(final SearchBoard board, final Alliance alliance) {
+        return MOBILITY_MULTIPLIER*(int) ((board.countMoves(alliance)*10.0f)/board.countMoves(alliance.getOpposite()));
+    }
+
+    private static int kingThreats(final SearchBoard board, final Alliance alliance, final int depth) {
+        final Alliance opponent = alliance.getOpposite();
+        if(!board.getBitBoard().isSquareAttacked(board.getKingSquare(opponent), alliance))
+        {
+            return 0;
+        }
+        return opponent == board.getSideToMove() && board.getGameState() == GameState.CHECKMATE ? CHECK_MATE_BONUS * depthBonus(depth) : CHECK_BONUS;
+    }
+
+    //counts captures that do not lose material: of a piece worth at least as much as the attacker,
+    //or of a cheaper one when static exchange evaluation says it is not defended well enough
+    private static int attack(final SearchBoard board, final Alliance alliance) {
+        final BitBoard bitBoard = board.getBitBoard();
+        final long occupied = bitBoard.getOccupancy();
+        final long enemies = bitBoard.getOccupancy(alliance.getOpposite());
+        int attackScore = 0;
+        long pieces = bitBoard.getOccupancy(alliance);
+        while(pieces != 0)
+        {
+            final int square = Long.numberOfTrailingZeros(pieces);
+            final Piece.PieceType pieceType = BitBoard.pieceTypeOf(bitBoard.getPieceCode(square));
+            long targets = attacks(alliance, pieceType, square, occupied) & enemies;
+            while(targets != 0)
+            {
+                final int target = Long.numberOfTrailingZeros(targets);
+                if(BitBoard.pieceTypeOf(bitBoard.getPieceCode(target)).getPieceValue() >= pieceType.getPieceValue() ||
+                   board.see(square, target) >= 0)
+                {
+                    attackScore++;
+                }
+                targets &= targets - 1;
+            }
+            if(pieceType == Piece.PieceType.PAWN && alliance == board.getSideToMove() && board.getEnPassantSquare() >= 0 &&
+               (LeaperAttacks.pawnAttacks(alliance, square) & BitBoard.squareMask(board.getEnPassantSquare())) != 0)
+            {
+                attackScore++;
+            }
+            pieces &= pieces - 1;
+        }
+        return attackScore*ATTACK_MULTIPLIER;
+    }
+
+    private static long attacks(final Alliance alliance,
+                                final Piece.PieceType pieceType,
+                                final int square,
+                                final long occupied) {
+        switch(pieceType)
+        {
+            case PAWN: return LeaperAttacks.pawnAttacks(alliance, square);
+            case KNIGHT: return LeaperAttacks.knightAttacks(square);
+            case BISHOP: return MagicBitBoards.bishopAttacks(square, occupied);
+            case ROOK: return MagicBitBoards.rookAttacks(square, occupied);
+            case QUEEN: return MagicBitBoards.queenAttacks(square, occupied);
+            default: return LeaperAttacks.kingAttacks(square);
+        }
+    }
+
+    private static int pieceEvaluation(final SearchBoard board, final Alliance alliance) {
+        final BitBoard bitBoard = board.getBitBoard();
+        int pieceValuationScore = 0;
+        long pieces = bitBoard.getOccupancy(alliance);
+        while(pieces != 0)
+        {
+            final int square = Long.numberOfTrailingZeros(pieces);
+            final Piece.PieceType pieceType = BitBoard.pieceTypeOf(bitBoard.getPieceCode(square));
+            pieceValuationScore += pieceType.getPieceValue() + locationBonus(alliance, pieceType, square);
+            pieces &= pieces - 1;
+        }
+        final int numBishops = Long.bitCount(bitBoard.getPieces(alliance, Piece.PieceType.BISHOP));
+        return pieceValuationScore + (numBishops==2? TWO_BISHOP_BONUS : 0);
+    }
+
+    private static int locationBonus(final Alliance alliance, final Piece.PieceType pieceType, final int square) {
+        switch(pieceType)
+        {
+            case PAWN: return alliance.pawnBonus(square);
+            case KNIGHT: return alliance.knightBonus(square);
+            case BISHOP: return alliance.bishopBonus(square);
+            case ROOK: return alliance.rookBonus(square);
+            case QUEEN: return alliance.queenBonus(square);
+            default: return alliance.kingBonus(square);
+        }
+    }
+
+    private static int pawnStructure(final SearchBoard board, final Alliance alliance) {
+        return PawnStructureAnalyzer.get().pawnStructureScore(board.getBitBoard().getPieces(alliance, Piece.PieceType.PAWN));
+    }
 }
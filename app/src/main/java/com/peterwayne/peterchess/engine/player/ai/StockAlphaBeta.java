@@ -4,15 +4,15 @@ import static com.peterwayne.peterchess.engine.board.BoardUtils.mvvlva;
 
 import android.util.Log;
 
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
+import com.peterwayne.peterchess.engine.board.BitBoard;
 import com.peterwayne.peterchess.engine.board.Board;
-import com.peterwayne.peterchess.engine.board.BoardUtils;
+import com.peterwayne.peterchess.engine.board.GameState;
 import com.peterwayne.peterchess.engine.board.Move;
-import com.peterwayne.peterchess.engine.board.MoveTransition;
-import com.peterwayne.peterchess.engine.player.Player;
-import java.util.Collection;
-import java.util.Comparator;
+import com.peterwayne.peterchess.engine.board.SearchBoard;
+import com.peterwayne.peterchess.engine.pieces.Piece;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Observable;
 
 public class StockAlphaBeta extends Observable implements MoveStrategy{
@@ -20,114 +20,324 @@ public class StockAlphaBeta extends Observable implements MoveStrategy{
     private final int searchDepth;
     private long boardsEvaluated;
     private int quiescenceCount;
-    private final int MAX_QUIESCENCE = 5000*5;
-    private enum MoveSorter {
-        STANDARD {
-            @Override
-            Collection<Move> sort(Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>)(move1, move2) -> ComparisonChain.start()
-                        .compareTrueFirst(move1.isCastlingMove(),move2.isCastlingMove())
-                        .compare(mvvlva(move2), mvvlva(move1))
-                        .result()).immutableSortedCopy(moves);
-            }
-        },
-        EXPENSIVE {
-            @Override
-            Collection<Move> sort(Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>)(move1, move2) -> ComparisonChain.start()
-                            .compareTrueFirst(BoardUtils.kingThreat(move1), BoardUtils.kingThreat(move2))
-                            .compareTrueFirst(move1.isCastlingMove(),move2.isCastlingMove())
-                            .compare(BoardUtils.mvvlva(move2),BoardUtils.mvvlva(move1))
-                            .result()).immutableSortedCopy(moves);
-            }
-        };
-        abstract Collection<Move> sort(Collection<Move> moves);
-    }
+    private static final int KING_THREAT_ORDER_BONUS = 1 << 30;
+    private static final int CASTLE_ORDER_BONUS = 1 << 29;
+    private static final int HASH_MOVE_ORDER_BONUS = Integer.MAX_VALUE;
+    private static final int NO_CUTOFF = Integer.MIN_VALUE + 1;
+    //window bound beyond any score, -INFINITY can still be negated
+    private static final int INFINITY = Integer.MAX_VALUE;
+    //score of the side to move when it is mated at the root, a mate found at ply p scores -(MATE - p)
+    //so faster mates are preferred; any score beyond MATE_BOUND either way is a mate score
+    private static final int MATE = 1000000;
+    private static final int MATE_BOUND = MATE - SearchBoard.MAX_PLY;
+    private static final int DEFAULT_TRANSPOSITION_TABLE_MB = 8;
+    private final TranspositionTable transpositionTable;
+    private static final int STABLE_ITERATIONS = 3;
+    private static final int SCORE_DROP_MARGIN = 50;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    private static final int DELTA_MARGIN = 200;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    //moves searched at full depth before late move reductions start
+    private static final int FULL_DEPTH_MOVES = 3;
+    private static final int REDUCTION_MIN_DEPTH = 3;
+    private static final int[][] LATE_MOVE_REDUCTIONS = createLateMoveReductions();
+    //by remaining depth, the number of moves searched after which the remaining late quiet moves are pruned
+    private static final int[] LATE_MOVE_COUNTS = {0, 8, 12, 18};
+    private static final int PRUNED = -1;
+    //soft limit: no new iteration is started after it, hard limit: the search is stopped, 0 for none
+    private final long softTimeLimit;
+    private final long hardTimeLimit;
+    private long searchStartTime;
+    private long nodesSearched;
+    private volatile boolean stopped;
+    private volatile Move bestMove;
+    private volatile int completedDepth;
+    private int rootScore;
+    //0 for a search of its own, above 0 for a helper of a LazySMPSearch
+    private int helperId;
+    private boolean rootCheckMate;
+    private final int[] rootMoves = new int[SearchBoard.MAX_MOVES];
+    private final int[] rootScores = new int[SearchBoard.MAX_MOVES];
+    //one move picker per ply, created the first time the search reaches that ply
+    private final MovePicker[] movePickers;
+    //killers, history and countermoves for ordering the quiet moves
+    private final MoveHistory moveHistory;
+    //pvTable[ply] holds the best line found from ply on, in pvTable[ply][ply .. pvLength[ply] - 1]
+    private final int[][] pvTable;
+    private final int[] pvLength;
+    private volatile List<Move> principalVariation;
     @Override
     public Move execute(final Board board) {
+        this.transpositionTable.newSearch();
+        return searchAsMain(board);
+    }
+
+    //the search whose move is played: logs, prints and notifies its observers. The caller has
+    //already started a new search in the transposition table, a LazySMPSearch before its helpers
+    Move searchAsMain(final Board board) {
         final long startTime = System.currentTimeMillis();
-        final Player currentPlayer = board.getCurrentPlayer();
-        Move bestMove = Move.MoveFactory.getNullMove();
-        int highestSeenValue = Integer.MIN_VALUE;
-        int lowestSeenValue = Integer.MAX_VALUE;
-        int currentValue;
+        final SearchBoard searchBoard = new SearchBoard(board);
         Log.d("Engine", board.getCurrentPlayer() + " thinking with depth = " + this.searchDepth);
-        int moveCounter =1;
-        int numMoves = board.getCurrentPlayer().getLegalMoves().size();
-        for(final Move move: MoveSorter.EXPENSIVE.sort(board.getCurrentPlayer().getLegalMoves()))
+        iterativeDeepening(searchBoard, board);
+        final Move selectedMove = this.bestMove;
+        final long executionTime = Math.max(1, System.currentTimeMillis() - startTime);
+        final String result = board.getCurrentPlayer() + " SELECTS " +selectedMove+ " [#boards evaluated = " +this.boardsEvaluated+
+                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime)) +
+                " depth = " + this.completedDepth + " pv = " + this.principalVariation;
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f, depth = %d\n", board.getCurrentPlayer(),
+                selectedMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)), this.completedDepth);
+        setChanged();
+        notifyObservers(result);
+        return selectedMove;
+    }
+
+    //entry point of a LazySMPSearch helper thread: it deepens on its own board and only fills the
+    //shared transposition table. Nothing is logged, printed, notified or turned into a Move, so the
+    //helper never touches the Board the GUI is using
+    void searchAsHelper(final SearchBoard searchBoard) {
+        iterativeDeepening(searchBoard, null);
+    }
+
+    //Deepens one ply at a time until the maximum depth, the time budget or a stop. rootBoard is the
+    //searched position as a Board for turning the best move and the principal variation into Moves
+    //and for reporting progress, null for a helper.
+    private void iterativeDeepening(final SearchBoard searchBoard, final Board rootBoard) {
+        this.searchStartTime = System.nanoTime();
+        this.stopped = false;
+        this.nodesSearched = 0;
+        this.bestMove = Move.MoveFactory.getNullMove();
+        this.completedDepth = 0;
+        this.principalVariation = Collections.emptyList();
+        this.moveHistory.newSearch();
+        long softTimeLimit = this.softTimeLimit;
+        int previousBestMove = SearchBoard.NO_MOVE;
+        int previousScore = 0;
+        int stableIterations = 0;
+        //odd helpers run a ply ahead of the main search so the threads do not all search the same tree
+        final int firstDepth = Math.min(this.searchDepth, 1 + this.helperId % 2);
+        for(int depth = firstDepth; depth <= this.searchDepth; depth++)
         {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
+            final int move = searchRoot(rootBoard, searchBoard, depth);
+            if(this.stopped)
+            {
+                //an unfinished iteration only counts when there is no finished one
+                if(rootBoard != null && this.completedDepth == 0 && move != SearchBoard.NO_MOVE)
+                {
+                    this.bestMove = Move.MoveFactory.createMove(rootBoard, move);
+                }
+                break;
+            }
+            if(rootBoard != null)
+            {
+                this.bestMove = move != SearchBoard.NO_MOVE ?
+                        Move.MoveFactory.createMove(rootBoard, move) : Move.MoveFactory.getNullMove();
+                this.principalVariation = createPrincipalVariation(rootBoard, this.pvTable[0], this.pvLength[0]);
+            }
+            this.completedDepth = depth;
+            //a mate within the searched depth is proven, deeper iterations cannot change it
+            if(move == SearchBoard.NO_MOVE || this.rootCheckMate || MATE - Math.abs(this.rootScore) <= depth)
+            {
+                break;
+            }
+            if(this.softTimeLimit == 0)
+            {
+                continue;
+            }
+            stableIterations = move == previousBestMove ? stableIterations + 1 : 0;
+            //a falling score means the previous best move runs into trouble, it gets more time to resolve it
+            if(depth > 1 && this.rootScore < previousScore - SCORE_DROP_MARGIN)
+            {
+                softTimeLimit = Math.min(softTimeLimit * 2, this.hardTimeLimit);
+            }
+            previousBestMove = move;
+            previousScore = this.rootScore;
+            final long elapsedTime = System.nanoTime() - this.searchStartTime;
+            if(elapsedTime >= softTimeLimit || (stableIterations >= STABLE_ITERATIONS && elapsedTime >= softTimeLimit / 2))
+            {
+                break;
+            }
+        }
+    }
+
+    //one iteration over the root moves at the given depth. Returns the best move, or the best of the
+    //moves searched so far when the search was stopped, and leaves its score in rootScore.
+    //Progress is only reported when there is a rootBoard to describe the moves with
+    private int searchRoot(final Board rootBoard,
+                           final SearchBoard searchBoard,
+                           final int depth) {
+        int bestMove = SearchBoard.NO_MOVE;
+        int alpha = -INFINITY;
+        this.rootCheckMate = false;
+        this.pvLength[0] = 0;
+        final int[] moves = this.rootMoves;
+        final int[] scores = this.rootScores;
+        final int hashMove = hashMove(this.transpositionTable.probe(searchBoard.getZobristHash()));
+        final int numMoves = searchBoard.generateLegalMoves(moves, 0);
+        for(int i = 0; i < numMoves; i++)
+        {
+            scores[i] = moves[i] == hashMove ? HASH_MOVE_ORDER_BONUS :
+                    (searchBoard.givesCheck(moves[i]) ? KING_THREAT_ORDER_BONUS : 0) +
+                    (SearchBoard.isCastle(moves[i]) ? CASTLE_ORDER_BONUS : 0) + mvvlva(searchBoard, moves[i]);
+        }
+        sortByScore(moves, scores, numMoves);
+        if(this.helperId > 0)
+        {
+            rotateAfterFirst(moves, numMoves, this.helperId);
+        }
+        for(int i = 0; i < numMoves; i++)
+        {
+            final int move = moves[i];
             this.quiescenceCount = 0;
-            final String s;
-            if(moveTransition.getMoveStatus().isDone())
-            {
-                final long candidateMoveStartTime = System.nanoTime();
-                currentValue = currentPlayer.getAlliance().isWhite() ?
-                        min(moveTransition.getToBoard(),this.searchDepth-1,highestSeenValue,lowestSeenValue) :
-                        max(moveTransition.getToBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue);
-                if(currentPlayer.getAlliance().isWhite() && currentValue>highestSeenValue)
+            final long candidateMoveStartTime = System.nanoTime();
+            searchBoard.makeMove(move);
+            int score;
+            if(i == 0)
+            {
+                score = -search(searchBoard, depth - 1, -INFINITY, -alpha);
+            }
+            else
+            {
+                score = -search(searchBoard, depth - 1, -alpha - 1, -alpha);
+                if(score > alpha && !this.stopped)
                 {
-                    highestSeenValue = currentValue;
-                    bestMove = move;
-                    if(moveTransition.getToBoard().getBlackPlayer().isInCheckMate())
-                    {
-                        break;
-                    }
-                }else if(currentPlayer.getAlliance().isBlack() && currentValue <lowestSeenValue)
+                    score = -search(searchBoard, depth - 1, -INFINITY, -alpha);
+                }
+            }
+            final boolean isCheckMate = searchBoard.getGameState() == GameState.CHECKMATE;
+            searchBoard.unmakeMove();
+            if(this.stopped)
+            {
+                break;
+            }
+            if(score > alpha)
+            {
+                alpha = score;
+                bestMove = move;
+                updatePrincipalVariation(0, move);
+                if(isCheckMate)
                 {
-                    lowestSeenValue = currentValue;
-                    bestMove = move;
-                    if(moveTransition.getToBoard().getWhitePlayer().isInCheckMate())
-                    {
-                        break;
-                    }
+                    this.rootCheckMate = true;
+                    break;
                 }
-                final String quiescenceInfo = " " + score(currentPlayer, highestSeenValue, lowestSeenValue) + " q: " +this.quiescenceCount;
-                s = "\t" + toString() + "(" +this.searchDepth+ "), m: (" +moveCounter+ "/" +numMoves+ ") " + move + ", best:  " + bestMove
-
-                        + quiescenceInfo + ", t: " +calculateTimeTaken(candidateMoveStartTime, System.nanoTime());
-
-            }else {
-                s = "\t" + toString() + "(" +this.searchDepth + ")" + ", m: (" +moveCounter+ "/" +numMoves+ ") " + move + " is illegal! best: " +bestMove;
             }
+            if(rootBoard == null)
+            {
+                continue;
+            }
+            final String quiescenceInfo = " [score: " + (searchBoard.getSideToMove().isWhite() ? alpha : -alpha) + "] q: " + this.quiescenceCount;
+            final String s = "\t" + toString() + "(" +depth+ "), m: (" +(i + 1)+ "/" +numMoves+ ") " +
+                    Move.MoveFactory.createMove(rootBoard, move) + ", best:  " + Move.MoveFactory.createMove(rootBoard, bestMove)
+                    + quiescenceInfo + ", t: " +calculateTimeTaken(candidateMoveStartTime, System.nanoTime());
             Log.d("Engine",s);
             setChanged();
             notifyObservers();
-            moveCounter++;
         }
-
-        final long executionTime = System.currentTimeMillis() - startTime;
-        final String result = board.getCurrentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +this.boardsEvaluated+
-                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime));
-        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f\n", board.getCurrentPlayer(),
-                bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)));
-        setChanged();
-        notifyObservers(result);
+        this.rootScore = alpha;
+        if(bestMove != SearchBoard.NO_MOVE && !this.stopped)
+        {
+            this.transpositionTable.store(searchBoard.getZobristHash(), depth, TranspositionTable.EXACT,
+                    this.rootScore, bestMove);
+        }
         return bestMove;
     }
 
+    //the moves of the principal variation of the last finished iteration replayed from the root board
+    private static List<Move> createPrincipalVariation(final Board board, final int[] moves, final int numMoves) {
+        final List<Move> principalVariation = new ArrayList<>();
+        Board position = board;
+        for(int i = 0; i < numMoves; i++)
+        {
+            final Move move = Move.MoveFactory.createMove(position, moves[i]);
+            principalVariation.add(move);
+            position = move.execute();
+        }
+        return Collections.unmodifiableList(principalVariation);
+    }
+
+    //helpers keep the best move first and start the rest at a different move each
+    //rotates moves[1 .. numMoves - 1] right by distance in place, by three reversals
+    private static void rotateAfterFirst(final int[] moves, final int numMoves, final int distance) {
+        if(numMoves < 3)
+        {
+            return;
+        }
+        final int shift = distance % (numMoves - 1);
+        reverse(moves, 1, numMoves - 1);
+        reverse(moves, 1, shift);
+        reverse(moves, shift + 1, numMoves - 1);
+    }
+
+    private static void reverse(final int[] moves, int from, int to) {
+        while(from < to)
+        {
+            final int move = moves[from];
+            moves[from++] = moves[to];
+            moves[to--] = move;
+        }
+    }
+
+    void setHelperId(final int helperId) {
+        this.helperId = helperId;
+    }
+
+    //asks a running search to return; execute then answers with the last finished iteration
+    public void stop() {
+        this.stopped = true;
+    }
+
+    //best move of the last finished iteration of the running or last search
+    public Move getBestMove() {
+        return this.bestMove;
+    }
+
+    //expected line of play from the root, starting with the best move
+    public List<Move> getPrincipalVariation() {
+        return this.principalVariation;
+    }
+
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+    private boolean isOutOfTime() {
+        return this.hardTimeLimit > 0 && System.nanoTime() - this.searchStartTime >= this.hardTimeLimit;
+    }
+
     private String calculateTimeTaken(final long start,final long end) {
         final long timeTaken = (end - start) / 1000000;
         return timeTaken + " ms";
     }
 
-    private static String score(final Player currentPlayer,
-                                final int highestSeenValue,
-                                int lowestSeenValue) {
-        if(currentPlayer.getAlliance().isWhite()) {
-            return "[score: " +highestSeenValue + "]";
-        } else if(currentPlayer.getAlliance().isBlack()) {
-            return "[score: " +lowestSeenValue+ "]";
-        }
-        throw new RuntimeException("Error while calculating!");
+    public StockAlphaBeta(final int searchDepth)
+    {
+        this(searchDepth, new TranspositionTable(DEFAULT_TRANSPOSITION_TABLE_MB));
     }
 
-    public StockAlphaBeta(final int searchDepth)
+    //the table can be kept between moves of a game so later searches start from earlier results
+    public StockAlphaBeta(final int searchDepth, final TranspositionTable transpositionTable)
+    {
+        this(searchDepth, 0, 0, transpositionTable);
+    }
+
+    //iterative deepening up to maxDepth within a time budget per move, in milliseconds
+    public StockAlphaBeta(final int maxDepth,
+                          final long softTimeLimitMillis,
+                          final long hardTimeLimitMillis,
+                          final TranspositionTable transpositionTable)
     {
         this.evaluator =StandardBoardEvaluator.get();
-        this.searchDepth =searchDepth;
+        this.softTimeLimit = softTimeLimitMillis * 1000000;
+        this.hardTimeLimit = Math.max(hardTimeLimitMillis, softTimeLimitMillis) * 1000000;
+        this.bestMove = Move.MoveFactory.getNullMove();
+        this.transpositionTable = transpositionTable;
+        this.searchDepth =maxDepth;
         this.boardsEvaluated = 0;
         this.quiescenceCount = 0;
+        this.movePickers = new MovePicker[SearchBoard.MAX_PLY];
+        this.moveHistory = new MoveHistory();
+        this.pvTable = new int[SearchBoard.MAX_PLY][SearchBoard.MAX_PLY];
+        this.pvLength = new int[SearchBoard.MAX_PLY];
+        this.principalVariation = Collections.emptyList();
     }
 
 
@@ -140,84 +350,329 @@ public class StockAlphaBeta extends Observable implements MoveStrategy{
     public String toString() {
         return "StockAlphaBeta";
     }
-    private int min(final Board board,
-                    final int depth,
-                    final int highest,
-                    final int lowest) {
-        if(depth == 0 || BoardUtils.isEndGame(board))
+    //Principal variation search in negamax form: scores are from the side to move and every child
+    //is searched with the window negated. The first move gets the full window, the rest a null
+    //window around alpha that only proves them worse, and a move that fails high on it is searched
+    //again with the full window. The search is fail-hard: results are clamped to [alpha, beta].
+    private int search(final SearchBoard board,
+                       final int depth,
+                       final int alpha,
+                       final int beta) {
+        final int ply = board.getPly();
+        this.pvLength[ply] = ply;
+        if(this.stopped || (++this.nodesSearched % TIME_CHECK_INTERVAL == 0 && isOutOfTime()))
+        {
+            this.stopped = true;
+            return 0;
+        }
+        final long hash = board.getZobristHash();
+        final long entry = this.transpositionTable.probe(hash);
+        if(entry != TranspositionTable.NO_ENTRY && TranspositionTable.depth(entry) >= depth)
+        {
+            final int cutoff = transpositionCutoff(entry, ply, alpha, beta);
+            if(cutoff != NO_CUTOFF)
+            {
+                return cutoff;
+            }
+        }
+        if(depth == 0)
+        {
+            return quiescence(board, alpha, beta);
+        }
+        if(board.isEndGame())
         {
             this.boardsEvaluated++;
-            return this.evaluator.evaluate(board,depth);
+            return board.getGameState() == GameState.CHECKMATE ? -(MATE - ply) : evaluate(board, depth);
         }
-        int currentLowest = lowest;
-        for(final Move move : MoveSorter.STANDARD.sort(board.getCurrentPlayer().getLegalMoves()))
+        //the side to move passes: if the opponent still cannot get below beta, a real move would not either
+        if(beta != INFINITY && canTryNullMove(board, depth))
         {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if(moveTransition.getMoveStatus().isDone())
+            board.makeNullMove();
+            final int score = -search(board, depth - 1 - nullMoveReduction(depth), -beta, -beta + 1);
+            board.unmakeNullMove();
+            if(this.stopped)
+            {
+                return 0;
+            }
+            if(score >= beta)
+            {
+                return beta;
+            }
+        }
+        int currentAlpha = alpha;
+        int bestMove = SearchBoard.NO_MOVE;
+        int movesSearched = 0;
+        final boolean isInCheck = board.isInCheck();
+        final MovePicker movePicker = movePicker(board, hashMove(entry));
+        for(int move = movePicker.nextMove(); move != SearchBoard.NO_MOVE; move = movePicker.nextMove())
+        {
+            final int reduction = isLateQuietMove(board, move, movesSearched, isInCheck) ?
+                    lateMoveReduction(depth, movesSearched) : 0;
+            if(reduction == PRUNED)
+            {
+                continue;
+            }
+            board.makeMove(move);
+            int score;
+            if(movesSearched == 0)
+            {
+                score = -search(board, depth - 1, -beta, -currentAlpha);
+            }
+            else
             {
-                final Board toBoard = moveTransition.getToBoard();
-                currentLowest = Math.min(currentLowest, max(toBoard,
-                 calculateQuiescenceDepth(toBoard, depth), highest,currentLowest));
-                if(currentLowest<=highest)
+                score = -search(board, depth - 1 - reduction, -currentAlpha - 1, -currentAlpha);
+                if(score > currentAlpha && reduction > 0 && !this.stopped)
+                {
+                    score = -search(board, depth - 1, -currentAlpha - 1, -currentAlpha);
+                }
+                if(score > currentAlpha && score < beta && !this.stopped)
                 {
-                    return highest;
+                    score = -search(board, depth - 1, -beta, -currentAlpha);
                 }
             }
+            board.unmakeMove();
+            if(this.stopped)
+            {
+                return 0;
+            }
+            movesSearched++;
+            if(score >= beta)
+            {
+                this.moveHistory.update(board, move, depth);
+                this.transpositionTable.store(hash, depth, TranspositionTable.LOWER_BOUND, scoreToTable(beta, ply), move);
+                return beta;
+            }
+            if(score > currentAlpha)
+            {
+                currentAlpha = score;
+                bestMove = move;
+                updatePrincipalVariation(ply, move);
+            }
         }
-        return currentLowest;
+        this.transpositionTable.store(hash, depth,
+                bestMove != SearchBoard.NO_MOVE ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND,
+                scoreToTable(currentAlpha, ply), bestMove);
+        return currentAlpha;
+    }
+
+    //triangular PV table: the line at a ply is its best move followed by the line of the child
+    private void updatePrincipalVariation(final int ply, final int move) {
+        this.pvTable[ply][ply] = move;
+        final int childLength = this.pvLength[ply + 1];
+        System.arraycopy(this.pvTable[ply + 1], ply + 1, this.pvTable[ply], ply + 1, childLength - ply - 1);
+        this.pvLength[ply] = Math.max(childLength, ply + 1);
     }
 
-    private int max(final Board board,
-                    final int depth,
-                    final int highest,
-                    final int lowest) {
-        if(depth == 0 || BoardUtils.isEndGame(board))
+    //the evaluator scores from white's side, the search from the side to move
+    private int evaluate(final SearchBoard board, final int depth) {
+        final int score = this.evaluator.evaluate(board, depth);
+        return board.getSideToMove().isWhite() ? score : -score;
+    }
+
+    //null-move pruning is unsound in zugzwang, which is likely with only pawns left and certain in
+    //check, and two passes in a row would only search the same position shallower
+    private static boolean canTryNullMove(final SearchBoard board, final int depth) {
+        return depth >= NULL_MOVE_MIN_DEPTH &&
+               !board.isAfterNullMove() &&
+               !board.isInCheck() &&
+               board.hasNonPawnMaterial(board.getSideToMove());
+    }
+
+    private static int nullMoveReduction(final int depth) {
+        return depth > 6 ? 3 : 2;
+    }
+
+    //Late quiet moves rarely matter once the moves are well ordered. They are searched shallower,
+    //and again at full depth only when the reduced search beats the window (late move reductions).
+    //Near the horizon the latest of them are not searched at all (move count pruning).
+    private boolean isLateQuietMove(final SearchBoard board,
+                                    final int move,
+                                    final int movesSearched,
+                                    final boolean isInCheck) {
+        return movesSearched >= FULL_DEPTH_MOVES && !isInCheck &&
+               !SearchBoard.isCapture(move) && !SearchBoard.isPromotion(move) &&
+               !this.moveHistory.isKiller(board.getPly(), move) && !board.givesCheck(move);
+    }
+
+    //plies taken off a late quiet move, PRUNED when it is not searched
+    private static int lateMoveReduction(final int depth, final int movesSearched) {
+        if(depth < LATE_MOVE_COUNTS.length && movesSearched >= LATE_MOVE_COUNTS[depth])
         {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
+            return PRUNED;
         }
-        int currentHighest = highest;
-        for(final Move move: MoveSorter.STANDARD.sort(board.getCurrentPlayer().getLegalMoves()))
+        if(depth < REDUCTION_MIN_DEPTH)
         {
-            final MoveTransition moveTransition = board.getCurrentPlayer().makeMove(move);
-            if(moveTransition.getMoveStatus().isDone())
+            return 0;
+        }
+        final int reduction = LATE_MOVE_REDUCTIONS[Math.min(depth, 63)][Math.min(movesSearched, 63)];
+        return Math.min(reduction, depth - 2);
+    }
+
+    private static int[][] createLateMoveReductions() {
+        final int[][] reductions = new int[64][64];
+        for(int depth = 1; depth < 64; depth++)
+        {
+            for(int moveNumber = 1; moveNumber < 64; moveNumber++)
             {
-                final Board toBoard = moveTransition.getToBoard();
-                currentHighest = Math.max(currentHighest, min(toBoard,
-                        calculateQuiescenceDepth(toBoard,depth),
-                        currentHighest,
-                        lowest));
-                if(currentHighest>=lowest)
-                {
-                    return lowest;
-                }
+                reductions[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
             }
         }
-        return currentHighest;
+        return reductions;
     }
 
-    private int calculateQuiescenceDepth(final Board toBoard,
-                                         final int depth) {
-        if(depth==1&& this.quiescenceCount<MAX_QUIESCENCE)
+    //Quiescence search at the horizon: the side to move may stand pat on the static evaluation or
+    //try captures and promotions, best MVV-LVA first, until the position is quiet. In check it has
+    //to answer with any legal move, and with none it is mated. Captures that lose material by static
+    //exchange evaluation are never tried, and those that cannot lift the score to the window even
+    //with the captured piece and a margin on top are pruned (delta pruning).
+    private int quiescence(final SearchBoard board,
+                           final int alpha,
+                           final int beta) {
+        this.pvLength[board.getPly()] = board.getPly();
+        if(this.stopped || (++this.nodesSearched % TIME_CHECK_INTERVAL == 0 && isOutOfTime()))
+        {
+            this.stopped = true;
+            return 0;
+        }
+        this.quiescenceCount++;
+        final boolean isInCheck = board.isInCheck();
+        int standPat = -INFINITY;
+        int currentAlpha = alpha;
+        final boolean isAtMaxPly = board.getPly() >= SearchBoard.MAX_PLY - 1;
+        if(!isInCheck || isAtMaxPly)
         {
-            int activityMeasure = 0;
-            if(toBoard.getCurrentPlayer().isInCheck())
+            this.boardsEvaluated++;
+            standPat = evaluate(board, 0);
+            if(standPat >= beta || isAtMaxPly)
             {
-                activityMeasure++;
+                return Math.max(alpha, Math.min(beta, standPat));
             }
-            for(final Move move: BoardUtils.lastNMove(toBoard,2))
+            currentAlpha = Math.max(currentAlpha, standPat);
+        }
+        final MovePicker movePicker = quiescenceMovePicker(board, isInCheck);
+        int numSearched = 0;
+        for(int move = movePicker.nextMove(); move != SearchBoard.NO_MOVE; move = movePicker.nextMove())
+        {
+            if(!isInCheck && !SearchBoard.isPromotion(move) &&
+               standPat + capturedPieceValue(board, move) + DELTA_MARGIN <= currentAlpha)
             {
-                if(move.isAttack())
-                {
-                    activityMeasure++;
-                }
+                continue;
+            }
+            board.makeMove(move);
+            final int score = -quiescence(board, -beta, -currentAlpha);
+            board.unmakeMove();
+            if(this.stopped)
+            {
+                return 0;
             }
-            if(activityMeasure>=2)
+            numSearched++;
+            if(score >= beta)
+            {
+                return beta;
+            }
+            currentAlpha = Math.max(currentAlpha, score);
+        }
+        if(isInCheck && numSearched == 0)
+        {
+            this.boardsEvaluated++;
+            return Math.max(alpha, Math.min(beta, -(MATE - board.getPly())));
+        }
+        return currentAlpha;
+    }
+
+    private MovePicker quiescenceMovePicker(final SearchBoard board, final boolean isInCheck) {
+        final int ply = board.getPly();
+        if(this.movePickers[ply] == null)
+        {
+            this.movePickers[ply] = new MovePicker();
+        }
+        if(isInCheck)
+        {
+            this.movePickers[ply].init(board, SearchBoard.NO_MOVE, this.moveHistory);
+        }
+        else
+        {
+            this.movePickers[ply].initCaptures(board, this.moveHistory);
+        }
+        return this.movePickers[ply];
+    }
+
+    private static int capturedPieceValue(final SearchBoard board, final int move) {
+        if(SearchBoard.moveFlag(move) == SearchBoard.EN_PASSANT)
+        {
+            return Piece.PieceType.PAWN.getPieceValue();
+        }
+        return SearchBoard.isCapture(move) ?
+                BitBoard.pieceTypeOf(board.getBitBoard().getPieceCode(SearchBoard.toSquare(move))).getPieceValue() : 0;
+    }
+
+    //the value of a node answered from a table entry at least as deep, NO_CUTOFF when it has to be searched.
+    //Scores are from the side to move, values outside the window are clamped to it
+    private static int transpositionCutoff(final long entry,
+                                           final int ply,
+                                           final int alpha,
+                                           final int beta) {
+        final int score = scoreFromTable(TranspositionTable.score(entry), ply);
+        switch(TranspositionTable.bound(entry))
+        {
+            case TranspositionTable.EXACT:
+                return Math.max(alpha, Math.min(beta, score));
+            case TranspositionTable.LOWER_BOUND:
+                return score >= beta ? beta : NO_CUTOFF;
+            case TranspositionTable.UPPER_BOUND:
+                return score <= alpha ? alpha : NO_CUTOFF;
+            default:
+                return NO_CUTOFF;
+        }
+    }
+
+    //mate scores count plies from the root in the search but from the node in the table,
+    //so an entry means the same mate wherever the position is found again
+    private static int scoreToTable(final int score, final int ply) {
+        if(score >= MATE_BOUND)
+        {
+            return score + ply;
+        }
+        return score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(final int score, final int ply) {
+        if(score >= MATE_BOUND)
+        {
+            return score - ply;
+        }
+        return score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private static int hashMove(final long entry) {
+        return entry != TranspositionTable.NO_ENTRY ? TranspositionTable.move(entry) : SearchBoard.NO_MOVE;
+    }
+
+    private MovePicker movePicker(final SearchBoard board, final int hashMove) {
+        final int ply = board.getPly();
+        if(this.movePickers[ply] == null)
+        {
+            this.movePickers[ply] = new MovePicker();
+        }
+        this.movePickers[ply].init(board, hashMove, this.moveHistory);
+        return this.movePickers[ply];
+    }
+
+    //a stable insertion sort, highest score first, so equal moves keep their generated order
+    private static void sortByScore(final int[] moves, final int[] scores, final int numMoves) {
+        for(int i = 1; i < numMoves; i++)
+        {
+            final int move = moves[i];
+            final int score = scores[i];
+            int j = i - 1;
+            while(j >= 0 && scores[j] < score)
             {
-                this.quiescenceCount++;
-                return 2;
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
             }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
         }
-        return depth-1;
     }
 }
@@ -0,0 +1,113 @@
+package com.peterwayne.peterchess.engine.player.ai;
+
+import java.util.Arrays;
+
+//Fixed size table of search results keyed by Zobrist hash. Every bucket has a depth-preferred
+//slot, kept while it holds a deeper result of the current search, and an always-replace slot.
+//Entries are packed into a long[]: each slot is the key XOR the data followed by the data, so a
+//slot half written by another thread fails the key check instead of giving a wrong result.
+public final class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    public static final long NO_ENTRY = 0;
+
+    //data layout: bits 0-31 score, bits 32-50 move, bits 51-58 depth, bits 59-60 bound, bits 61-63 age
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 51;
+    private static final int BOUND_SHIFT = 59;
+    private static final int AGE_SHIFT = 61;
+    private static final long MOVE_MASK = (1L << 19) - 1;
+    private static final long DEPTH_MASK = 0xFF;
+    private static final long BOUND_MASK = 0x3;
+    private static final int AGE_MASK = 0x7;
+    private static final int LONGS_PER_BUCKET = 4;
+    private static final int BUCKET_BYTES = LONGS_PER_BUCKET * 8;
+
+    private final long[] table;
+    private final int bucketMask;
+    //only changed between searches, before the threads of the next one are started
+    private int age;
+
+    public TranspositionTable(final int megabytes) {
+        final long buckets = Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / BUCKET_BYTES));
+        final int numBuckets = (int) Math.min(buckets, 1 << 26);
+        this.table = new long[numBuckets * LONGS_PER_BUCKET];
+        this.bucketMask = numBuckets - 1;
+        this.age = 0;
+    }
+
+    //called once per search, before its threads start, so entries of earlier searches give way in
+    //the depth-preferred slots
+    public void newSearch() {
+        this.age = (this.age + 1) & AGE_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(this.table, 0);
+    }
+
+    //the packed entry stored for the position, NO_ENTRY when there is none
+    public long probe(final long hash) {
+        final int index = bucketIndex(hash);
+        for(int slot = index; slot < index + LONGS_PER_BUCKET; slot += 2) {
+            final long data = this.table[slot + 1];
+            if(data != NO_ENTRY && (this.table[slot] ^ data) == hash) {
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    public void store(final long hash,
+                      final int depth,
+                      final int bound,
+                      final int score,
+                      final int move) {
+        final int index = bucketIndex(hash);
+        final long deepData = this.table[index + 1];
+        final int slot;
+        if(deepData == NO_ENTRY ||
+           (this.table[index] ^ deepData) == hash ||
+           depth >= depth(deepData) ||
+           age(deepData) != this.age) {
+            slot = index;
+        } else {
+            slot = index + 2;
+        }
+        final long previous = this.table[slot + 1];
+        //keep the best move of an earlier visit when this one produced none
+        final int storedMove = move == 0 && previous != NO_ENTRY && (this.table[slot] ^ previous) == hash ? move(previous) : move;
+        final long data = (score & 0xFFFFFFFFL) |
+                          ((storedMove & MOVE_MASK) << MOVE_SHIFT) |
+                          ((depth & DEPTH_MASK) << DEPTH_SHIFT) |
+                          ((long) bound << BOUND_SHIFT) |
+                          ((long) this.age << AGE_SHIFT);
+        this.table[slot] = hash ^ data;
+        this.table[slot + 1] = data;
+    }
+
+    public static int score(final long entry) {
+        return (int) entry;
+    }
+
+    public static int move(final long entry) {
+        return (int) ((entry >>> MOVE_SHIFT) & MOVE_MASK);
+    }
+
+    public static int depth(final long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int bound(final long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    private static int age(final long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    private int bucketIndex(final long hash) {
+        return (int) (hash & this.bucketMask) * LONGS_PER_BUCKET;
+    }
+}
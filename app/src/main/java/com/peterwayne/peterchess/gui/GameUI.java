@@ -22,7 +22,6 @@ import android.view.MotionEvent;
 import android.view.View;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.peterwayne.peterchess.R;
 import com.peterwayne.peterchess.engine.board.Board;
@@ -30,17 +29,29 @@ import com.peterwayne.peterchess.engine.board.BoardUtils;
 import com.peterwayne.peterchess.engine.board.Move;
 import com.peterwayne.peterchess.engine.board.MoveTransition;
 import com.peterwayne.peterchess.engine.pieces.Piece;
-import com.peterwayne.peterchess.engine.player.ai.StockAlphaBeta;
+import com.peterwayne.peterchess.engine.player.ai.LazySMPSearch;
+import com.peterwayne.peterchess.engine.player.ai.MoveStrategy;
+import com.peterwayne.peterchess.engine.player.ai.TranspositionTable;
 import com.peterwayne.peterchess.pattern.MyObservable;
 import com.peterwayne.peterchess.pattern.MyObserver;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class GameUI extends View implements MyObservable {
     private final int TILE_SIZE = getScreenWidth() / 8;
     private final int MAX_TILE_COORDINATE = 7*TILE_SIZE;
+    //the AI deepens its search until the soft limit, a running iteration is cut off at the hard limit
+    private static final int AI_MAX_DEPTH = 32;
+    private static final long AI_SOFT_TIME_MILLIS = 2000;
+    private static final long AI_HARD_TIME_MILLIS = 6000;
+    //one search thread per core, the main search runs on the AsyncTask thread
+    private static final int AI_HELPER_THREADS = Math.max(0, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int AI_TRANSPOSITION_TABLE_MB = 8;
     private Board chessBoard;
     private final BoardUI boardUI;
     private Piece sourceTile;
@@ -50,6 +61,8 @@ public class GameUI extends View implements MyObservable {
     private BoardDirection boardDirection;
     private final ArrayList<MyObserver> observers;
     private Move instantMove;
+    //kept for the whole game so each search starts from what the previous ones found
+    private final TranspositionTable transpositionTable;
 
 
     public GameUI(Context context, GameSetup gameSetup) {
@@ -59,7 +72,8 @@ public class GameUI extends View implements MyObservable {
         this.gameSetup = gameSetup;
         initBoardDirection();
         this.boardUI = new BoardUI(context);
-        this.moveLog = new MoveLog();
+        this.moveLog = new MoveLog(chessBoard);
+        this.transpositionTable = new TranspositionTable(AI_TRANSPOSITION_TABLE_MB);
         observers.add(new TableGameAIWatcher());
         notifyObservers(null);
     }
@@ -126,10 +140,10 @@ public class GameUI extends View implements MyObservable {
                 final MoveTransition transition = chessBoard.getCurrentPlayer().makeMove(move);
                 if (transition.getMoveStatus().isDone()) {
                     chessBoard = transition.getToBoard();
-                    moveLog.addMove(move);
+                    moveLog.addMove(move, chessBoard);
                     updateInstantMove(move);
                     notifyObservers(moveLog);
-                    Log.d("move", moveLog.getMoves().get(moveLog.size()-1).toString());
+                    Log.d("move", moveLog.getNotation(moveLog.size()-1));
                 }
                 sourceTile = null;
                 humanMovedPiece = null;
@@ -405,13 +419,9 @@ public class GameUI extends View implements MyObservable {
         private Collection<Move> pieceLegalMoves(final Board chessBoard) {
             if(humanMovedPiece!=null &&
                humanMovedPiece.getPieceAlliance() == chessBoard.getCurrentPlayer().getAlliance()){
-                if(humanMovedPiece.getPieceType()== Piece.PieceType.KING && humanMovedPiece.isFirstMove()){
-                    final List<Move> includesCastleMoves = new ArrayList<>();
-                    includesCastleMoves.addAll(chessBoard.getCurrentPlayer().calculateKingCastles(chessBoard.getCurrentPlayer().getLegalMoves(),
-                            chessBoard.getCurrentPlayer().getOpponent().getLegalMoves()));
-                    return ImmutableList.copyOf(Iterables.concat(humanMovedPiece.calculateLegalMoves(chessBoard), includesCastleMoves));
-                }
-                return humanMovedPiece.calculateLegalMoves(chessBoard);
+                return chessBoard.getStrictlyLegalMoves().stream()
+                        .filter(move -> move.getMovedPiece().equals(humanMovedPiece))
+                        .collect(ImmutableList.toImmutableList());
             }
             return Collections.emptyList();
         }
@@ -480,7 +490,8 @@ public class GameUI extends View implements MyObservable {
         @Override
         protected Move doInBackground(Void... voids) {
             enableTouch(false);
-            final StockAlphaBeta strategy = new StockAlphaBeta(4);
+            final MoveStrategy strategy = new LazySMPSearch(AI_MAX_DEPTH, AI_SOFT_TIME_MILLIS, AI_HARD_TIME_MILLIS,
+                    AI_HELPER_THREADS, transpositionTable);
             Move bestMove = strategy.execute(chessBoard);
             return bestMove;
 
@@ -489,7 +500,7 @@ public class GameUI extends View implements MyObservable {
         protected void onPostExecute(Move move) {
             super.onPostExecute(move);
             chessBoard = chessBoard.getCurrentPlayer().makeMove(move).getToBoard();
-            moveLog.addMove(move);
+            moveLog.addMove(move, chessBoard);
             notifyObservers(moveLog);
             updateInstantMove(move);
             invalidate();
@@ -507,34 +518,90 @@ public class GameUI extends View implements MyObservable {
         });
     }
 
+    //Compact record of the game: the start position plus the moves packed as SearchBoard ints.
+    //Positions are replayed from the nearest cached one when asked for, only a few are kept,
+    //so a long game does not keep every Board and its move lists reachable.
     public static class MoveLog
     {
-        private final List<Move> moves;
-        MoveLog()
+        private static final int POSITION_CACHE_SIZE = 8;
+        private Board startBoard;
+        private int[] moves;
+        private final List<String> notations;
+        private final Map<Integer, Board> positionCache;
+        private int size;
+        MoveLog(final Board startBoard)
         {
-            this.moves = new ArrayList<>();
+            this.startBoard = startBoard;
+            this.moves = new int[64];
+            this.notations = new ArrayList<>();
+            this.positionCache = new LinkedHashMap<Integer, Board>(POSITION_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Integer, Board> eldest) {
+                    return size() > POSITION_CACHE_SIZE;
+                }
+            };
         }
-        public List<Move> getMoves()
+        //the move has to be played on the position after the last logged move, toBoard is its result
+        void addMove(final Move move, final Board toBoard)
         {
-            return this.moves;
+            if(this.size == this.moves.length)
+            {
+                this.moves = Arrays.copyOf(this.moves, this.size * 2);
+            }
+            this.moves[this.size] = Move.MoveFactory.encodeMove(move);
+            this.notations.add(move.toString());
+            this.size++;
+            this.positionCache.put(this.size, toBoard);
         }
-        void addMove(final Move move)
+        public int size()
         {
-            this.moves.add(move);
+            return this.size;
         }
-        public int size()
+        //notation of the move at index, as Move.toString() gave it when the move was played
+        public String getNotation(final int index)
         {
-            return this.moves.size();
+            return this.notations.get(index);
         }
-        void clear()
+        //the position after the first ply moves, ply 0 is the start position
+        public Board getBoard(final int ply)
         {
-            this.moves.clear();
+            if(ply == 0)
+            {
+                return this.startBoard;
+            }
+            final Board cached = this.positionCache.get(ply);
+            if(cached != null)
+            {
+                return cached;
+            }
+            int fromPly = 0;
+            for(final int cachedPly : this.positionCache.keySet())
+            {
+                if(cachedPly < ply && cachedPly > fromPly)
+                {
+                    fromPly = cachedPly;
+                }
+            }
+            Board board = fromPly == 0 ? this.startBoard : this.positionCache.get(fromPly);
+            for(int i = fromPly; i < ply; i++)
+            {
+                board = Move.MoveFactory.createMove(board, this.moves[i]).execute();
+            }
+            this.positionCache.put(ply, board);
+            return board;
         }
-        Move removeMove(final int index) {
-            return this.moves.remove(index);
+        //the move at index as a Move of the position it was played from
+        public Move getMove(final int index)
+        {
+            return Move.MoveFactory.createMove(getBoard(index), this.moves[index]);
         }
-        boolean removeMove(final Move move) {
-            return this.moves.remove(move);
+        //starts the log over for a game from newStart
+        void clear(final Board newStart)
+        {
+            this.startBoard = newStart;
+            this.size = 0;
+            this.notations.clear();
+            this.positionCache.clear();
         }
     }
 }
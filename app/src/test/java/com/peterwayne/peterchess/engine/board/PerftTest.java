@@ -0,0 +1,96 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+//Known leaf counts of standard perft positions. The engine only promotes to a queen, so each
+//position stops at the last depth where no under-promotion is reachable.
+public class PerftTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    @Test
+    public void standardPosition() {
+        assertPerft(Board.createStandardBoard(), 20, 400, 8902, 197281);
+    }
+
+    @Test
+    public void standardPositionFromFEN() {
+        assertPerft(FenUtilities.createGameFromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"), 20, 400, 8902);
+    }
+
+    @Test
+    public void kiwipete() {
+        assertPerft(FenUtilities.createGameFromFEN(KIWIPETE), 48, 2039, 97862);
+    }
+
+    @Test
+    public void position3() {
+        assertPerft(FenUtilities.createGameFromFEN(POSITION_3), 14, 191, 2812, 43238, 674624);
+    }
+
+    //published 264 and 9467 at depths 2 and 3 count black's under-promotions on b1, a1 and c1,
+    //which this engine does not generate: it finds 228 and 8087, the difference being exactly
+    //three under-promotions for every queen promotion, so only depth 1 is checked
+    @Test
+    public void position4() {
+        assertPerft(FenUtilities.createGameFromFEN(POSITION_4), 6);
+    }
+
+    @Test
+    public void position6() {
+        assertPerft(FenUtilities.createGameFromFEN(POSITION_6), 46, 2079, 89890);
+    }
+
+    @Test
+    public void divideAddsUpToPerft() {
+        final Board board = FenUtilities.createGameFromFEN(KIWIPETE);
+        final Perft.Result result = Perft.run(board, 3);
+        assertEquals(48, result.getDivide().size());
+        assertEquals(Perft.perft(board, 3), result.getNodes());
+    }
+
+    @Test
+    public void parallelPerftWithHashTable() {
+        final Board board = FenUtilities.createGameFromFEN(KIWIPETE);
+        final Perft.Result result = Perft.runParallel(board, 3, 2, 1);
+        assertEquals(97862, result.getNodes());
+        assertEquals(Perft.divide(board, 3), result.getDivide());
+    }
+
+    @Test
+    public void fenRoundTrip() {
+        assertEquals(KIWIPETE, FenUtilities.createFENFromGame(FenUtilities.createGameFromFEN(KIWIPETE)));
+    }
+
+    //givesCheck works from the attack tables, playing the move is the reference
+    @Test
+    public void givesCheckMatchesPlayedMove() {
+        for(final String fen : new String[] {KIWIPETE, POSITION_3, POSITION_4, POSITION_6}) {
+            assertGivesCheck(new SearchBoard(FenUtilities.createGameFromFEN(fen)), 3);
+        }
+    }
+
+    private static void assertGivesCheck(final SearchBoard board, final int depth) {
+        final int[] moves = new int[SearchBoard.MAX_MOVES];
+        final int numMoves = board.generateLegalMoves(moves, 0);
+        for(int i = 0; i < numMoves; i++) {
+            final boolean givesCheck = board.givesCheck(moves[i]);
+            board.makeMove(moves[i]);
+            assertEquals(board.isInCheck(), givesCheck);
+            if(depth > 1) {
+                assertGivesCheck(board, depth - 1);
+            }
+            board.unmakeMove();
+        }
+    }
+
+    private static void assertPerft(final Board board, final long... expectedCounts) {
+        for(int depth = 1; depth <= expectedCounts.length; depth++) {
+            assertEquals("depth " + depth, expectedCounts[depth - 1], Perft.perft(board, depth));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.peterwayne.peterchess.engine.board;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+//Known swap-off results of SearchBoard.see, from the side making the first capture
+public class StaticExchangeTest {
+
+    @Test
+    public void undefendedPawn() {
+        assertSee("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1", "e5", 100);
+    }
+
+    @Test
+    public void defendedPawn() {
+        assertSee("4k3/8/2p5/3p4/4P3/8/8/4K3 w - - 0 1", "e4", "d5", 0);
+    }
+
+    @Test
+    public void knightTakesPawnDefendedByBatteries() {
+        assertSee("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3", "e5", -200);
+    }
+
+    @Test
+    public void rookBatteryXRay() {
+        assertSee("4k3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2", "d5", 100);
+    }
+
+    @Test
+    public void queenTakesPawnDefendedByPawn() {
+        assertSee("4k3/8/2p5/3p4/4P3/8/8/3QK3 w - - 0 1", "d1", "d5", -700);
+    }
+
+    private static void assertSee(final String fen, final String from, final String to, final int expected) {
+        final SearchBoard board = new SearchBoard(FenUtilities.createGameFromFEN(fen));
+        final int move = board.findMove(BoardUtils.INSTANCE.getCoordinateAtPosition(from),
+                                        BoardUtils.INSTANCE.getCoordinateAtPosition(to));
+        assertEquals(expected, board.see(move));
+    }
+}